@@ -0,0 +1,111 @@
+package dev.dimlight.maven.plugin.shellcheck.benchmarks;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Synthetic inputs for the benchmarks: source trees, scripts and a stub shellcheck, so that nothing has to be
+ * downloaded and the numbers measure the plugin, not shellcheck.
+ */
+final class BenchmarkFiles {
+
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * Writes a fake shellcheck that finds no problems: it prints an empty json1 report when asked for json1 and
+     * nothing otherwise.
+     *
+     * @param directory where to put it.
+     * @return the executable.
+     * @throws IOException if it cannot be written.
+     */
+    static Path stubShellcheck(Path directory) throws IOException {
+        final Path stub = directory.resolve("shellcheck");
+        Files.write(stub, Arrays.asList(
+            "#!/bin/sh",
+            "for arg in \"$@\"; do",
+            "  if [ \"$arg\" = \"--format=json1\" ]; then echo '{\"comments\":[]}'; fi",
+            "done",
+            "exit 0"), StandardCharsets.UTF_8);
+        if (!stub.toFile().setExecutable(true)) {
+            throw new IOException("Cannot make [" + stub + "] executable");
+        }
+        return stub;
+    }
+
+    /**
+     * Creates a tree of directories, each one with scripts, other files and a .git directory full of objects.
+     *
+     * @param root           where to create the tree.
+     * @param directories    how many directories.
+     * @param filesPerKind   how many scripts, other files and git objects in each directory.
+     * @return the created scripts.
+     * @throws IOException if the tree cannot be created.
+     */
+    static List<Path> sourceTree(Path root, int directories, int filesPerKind) throws IOException {
+        final List<Path> scripts = new ArrayList<>();
+        for (int d = 0; d < directories; d++) {
+            final Path directory = Files.createDirectories(root.resolve("module" + d).resolve("sh" + d % 10));
+            final Path gitObjects = Files.createDirectories(root.resolve("module" + d).resolve(".git").resolve("objects"));
+            for (int f = 0; f < filesPerKind; f++) {
+                scripts.add(Files.write(directory.resolve("script" + f + ".sh"),
+                    Arrays.asList("#!/bin/sh", "echo \"script " + f + "\""), StandardCharsets.UTF_8));
+                Files.createFile(directory.resolve("notes" + f + ".txt"));
+                Files.createFile(gitObjects.resolve("object" + f));
+            }
+        }
+        return scripts;
+    }
+
+    /**
+     * @param directory a directory to delete with all of its content.
+     * @throws IOException if it cannot be deleted.
+     */
+    static void delete(Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
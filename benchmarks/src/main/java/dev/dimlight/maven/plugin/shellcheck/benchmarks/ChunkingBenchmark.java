@@ -0,0 +1,92 @@
+package dev.dimlight.maven.plugin.shellcheck.benchmarks;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import dev.dimlight.maven.plugin.shellcheck.BalancedChunks;
+import dev.dimlight.maven.plugin.shellcheck.ChunkIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting large lists of files into shellcheck invocations, with each chunking strategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkingBenchmark {
+
+    @Param({"1000", "100000"})
+    private int files;
+
+    private List<Path> paths;
+
+    @Setup
+    public void setUp() {
+        paths = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            paths.add(Paths.get("/home/user/project/module" + i % 100, "src", "main", "sh", "script" + i + ".sh"));
+        }
+    }
+
+    private static void consume(Iterator<List<Path>> chunks, Blackhole blackhole) {
+        while (chunks.hasNext()) {
+            blackhole.consume(chunks.next());
+        }
+    }
+
+    @Benchmark
+    public void filesCount(Blackhole blackhole) {
+        consume(ChunkIterator.over(50, paths), blackhole);
+    }
+
+    @Benchmark
+    public void commandLineLength(Blackhole blackhole) {
+        consume(ChunkIterator.over(128 * 1024, path -> path.toString().length() + 1, paths), blackhole);
+    }
+
+    @Benchmark
+    public List<List<Path>> sizeBalanced() {
+        return BalancedChunks.split(paths, path -> path.toString().length(), 8, 50);
+    }
+}
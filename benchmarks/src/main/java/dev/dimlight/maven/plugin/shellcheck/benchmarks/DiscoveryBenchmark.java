@@ -0,0 +1,101 @@
+package dev.dimlight.maven.plugin.shellcheck.benchmarks;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import dev.dimlight.maven.plugin.shellcheck.SourceDir;
+import dev.dimlight.maven.plugin.shellcheck.SourceDirs;
+import dev.dimlight.maven.plugin.shellcheck.SourceTreeWalker;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.shared.model.fileset.util.FileSetManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the scripts of a synthetic source tree: the plugin discovery against the FileSetManager scan it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiscoveryBenchmark {
+
+    @Param({"100", "1000"})
+    private int directories;
+
+    @Param({"50"})
+    private int filesPerKind;
+
+    private final Log log = new SystemStreamLog();
+    private Path root;
+    private SourceDir sourceDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("shellcheck-discovery-benchmark");
+        BenchmarkFiles.sourceTree(root, directories, filesPerKind);
+        sourceDir = new SourceDir();
+        sourceDir.setDirectory(root.toFile().getAbsolutePath());
+        sourceDir.addInclude("**/*.sh");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(root);
+    }
+
+    @Benchmark
+    public String[] fileSetManager() {
+        return new FileSetManager(log, false).getIncludedFiles(sourceDir);
+    }
+
+    @Benchmark
+    public List<Path> sourceTreeWalker() {
+        return SourceTreeWalker.includedFiles(Collections.singletonList(sourceDir));
+    }
+
+    @Benchmark
+    public List<Path> search() {
+        return SourceDirs.search(Collections.singletonList(sourceDir), log);
+    }
+}
@@ -0,0 +1,107 @@
+package dev.dimlight.maven.plugin.shellcheck.benchmarks;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import dev.dimlight.maven.plugin.shellcheck.Shellcheck;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overhead of a shellcheck invocation as seen by the plugin: building the command line, starting the process,
+ * capturing (and optionally parsing) its output. A stub binary stands in for shellcheck, so that its own running
+ * time is close to zero.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvocationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int filesPerInvocation;
+
+    @Param({"false", "true"})
+    private boolean parseOutput;
+
+    private Path root;
+    private Path shellcheck;
+    private List<String> args;
+    private List<Path> scripts;
+    private Path capturedStdout;
+    private Path capturedStderr;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("shellcheck-invocation-benchmark");
+        shellcheck = BenchmarkFiles.stubShellcheck(root);
+        scripts = BenchmarkFiles.sourceTree(root.resolve("src"), 1, filesPerInvocation);
+        final List<String> configuredArgs = Arrays.asList("-a", "-s", "bash");
+        args = parseOutput ? Shellcheck.withFormat(configuredArgs, "json1") : configuredArgs;
+        capturedStdout = root.resolve("shellcheck.stdout");
+        capturedStderr = root.resolve("shellcheck.stderr");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(root);
+    }
+
+    @Benchmark
+    public List<String> commandLine() {
+        return Shellcheck.commandLine(shellcheck, args, scripts);
+    }
+
+    @Benchmark
+    public Shellcheck.Result run() throws IOException, InterruptedException {
+        return Shellcheck.run("benchmark", shellcheck, args, scripts, capturedStdout, capturedStderr, parseOutput, 0, false);
+    }
+
+    /**
+     * The same invocation on no files, i.e. the fixed cost of starting a process, whatever it checks.
+     */
+    @Benchmark
+    public Shellcheck.Result runNothing() throws IOException, InterruptedException {
+        return Shellcheck.run("benchmark", shellcheck, args, Collections.emptyList(), capturedStdout, capturedStderr, parseOutput, 0, false);
+    }
+}
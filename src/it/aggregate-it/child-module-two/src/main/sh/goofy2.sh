@@ -0,0 +1,4 @@
+#!/bin/bash
+
+echo "Hello"
+for item in $(ls -1); do echo $item; done
@@ -0,0 +1,49 @@
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+
+def pluginOutput = Paths.get(basedir.getAbsolutePath(), "target", "shellcheck-plugin")
+def buildLog = new String(Files.readAllBytes(Paths.get(basedir.getAbsolutePath(), "build.log")))
+def defaultLog = buildLog.substring(buildLog.indexOf(":check-aggregate (default) @ aggregate"), buildLog.indexOf(":check-aggregate (all-projects) @ aggregate"))
+def allProjectsLog = buildLog.substring(buildLog.indexOf(":check-aggregate (all-projects) @ aggregate"))
+
+// Every goofy file triggers 2 warnings, the aggregate goal always parses (json1) output.
+def countWarnings(Path stdout) {
+    return Files.readAllLines(stdout).stream()
+            .mapToInt({ line -> line.split("\"code\":", -1).length - 1 })
+            .sum()
+}
+
+// the modules configuring the plugin: 4 distinct files checked in a single run, in the root project only
+// (child-module-four recognizes its extensionless script by its shebang, child-module-two does not configure the
+// plugin, but child-module-three checks its scripts)
+assert countWarnings(pluginOutput.resolve("shellcheck.default.0.stdout")) == 8
+assert !Files.exists(pluginOutput.resolve("shellcheck.default.1.stdout"))
+assert !Files.exists(Paths.get(basedir.getAbsolutePath(), "child-module-two", "target", "shellcheck-plugin"))
+assert defaultLog.contains("Checking [4] files of [4] projects ([0] files belonging to more than one project are checked once)")
+// child-module-four recognizes its shell files by their shebang, notes.txt is not one of them
+assert !new String(Files.readAllBytes(pluginOutput.resolve("shellcheck.default.0.stdout"))).contains("notes.txt")
+assert !buildLog.contains("Parameter 'sourceDirs' is unknown")
+
+// the results are reported module by module, each diagnostic once, under its module
+def reports = [
+    "------ Project [aggregate]: [2] diagnostics, [2] with severity [style] or higher: FAILED ---",
+    "------ Project [child-module-one]: [0] diagnostics, [0] with severity [style] or higher: OK ---",
+    "------ Project [child-module-three]: [4] diagnostics, [4] with severity [style] or higher: FAILED ---",
+    "------ Project [child-module-four]: [2] diagnostics, [2] with severity [style] or higher: FAILED ---"
+]
+def positions = reports.collect { report -> defaultLog.indexOf(report) }
+assert positions.every { position -> position >= 0 }
+assert positions == positions.sort(false)
+def goofy2 = defaultLog.indexOf("goofy2.sh:4:13: warning: Goofy. [SC2012]")
+assert goofy2 > positions[2] && goofy2 < positions[3]
+assert defaultLog.indexOf("goofy2.sh:4:13: warning: Goofy. [SC2012]", goofy2 + 1) < 0
+assert Files.readAllLines(pluginOutput.resolve("shellcheck.default.dev.dimlight.it.child-module-three.diagnostics")).size() == 4
+assert Files.readAllLines(pluginOutput.resolve("shellcheck.default.dev.dimlight.it.child-module-one.diagnostics")).isEmpty()
+
+// with includeProjectsWithoutPlugin child-module-two is aggregated too, and its script is reported under it
+assert countWarnings(pluginOutput.resolve("shellcheck.all-projects.0.stdout")) == 8
+assert allProjectsLog.contains("Checking [4] files of [5] projects ([1] files belonging to more than one project are checked once)")
+assert allProjectsLog.contains("------ Project [child-module-two]: [2] diagnostics, [2] with severity [style] or higher: FAILED ---")
+assert allProjectsLog.contains("------ Project [child-module-three]: [2] diagnostics, [2] with severity [style] or higher: FAILED ---")
+return true
@@ -0,0 +1,25 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+
+// cloning the project does not keep the executable bit
+assert Paths.get(basedir.getAbsolutePath(), "fake-shellcheck").toFile().setExecutable(true)
+
+def git = { String... args ->
+    def command = ["git", "-c", "user.name=it", "-c", "user.email=it@example.com", "-c", "commit.gpgsign=false"] + args.toList()
+    def process = command.execute(null, basedir)
+    def output = process.text
+    assert process.waitFor() == 0: output
+}
+
+// the base: two scripts, the one that will not change has a problem that must not be reported
+git("init", "-q")
+git("add", "-A")
+git("commit", "-q", "-m", "base")
+git("tag", "base")
+
+// changed.sh gets a problem after the base, then everything is committed: nothing changed since HEAD
+def changed = Paths.get(basedir.getAbsolutePath(), "src", "main", "sh", "changed.sh")
+Files.write(changed, "#!/bin/sh\necho \$1 # bad\n".getBytes("UTF-8"))
+git("add", "-A")
+git("commit", "-q", "-m", "change")
+return true
@@ -0,0 +1,17 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+
+def buildLog = new String(Files.readAllBytes(Paths.get(basedir.getAbsolutePath(), "build.log")))
+def pluginOutput = Paths.get(basedir.getAbsolutePath(), "target", "shellcheck-plugin")
+
+// since the base only changed.sh is checked
+assert buildLog.contains("Changed since [base]: [1]/[2] files")
+assert buildLog.contains("changed.sh:2:6: info: Double quote to prevent globbing and word splitting. [SC2086]")
+assert !buildLog.contains("unchanged.sh:2")
+assert Files.exists(pluginOutput.resolve("shellcheck.since-base.0.stdout"))
+
+// since HEAD nothing changed, nothing is run
+assert buildLog.contains("Changed since [HEAD]: [0]/[2] files")
+assert buildLog.contains("No changed scripts since [HEAD], nothing to check")
+assert !Files.exists(pluginOutput.resolve("shellcheck.since-head.0.stdout"))
+return true
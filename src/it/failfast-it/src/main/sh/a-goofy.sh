@@ -0,0 +1,3 @@
+#!/bin/sh
+# the biggest file, so that its run is submitted first (slowest predicted runs go first)
+echo $1
@@ -0,0 +1,28 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+
+def buildLog = new String(Files.readAllBytes(Paths.get(basedir.getAbsolutePath(), "build.log")))
+def target = Paths.get(basedir.getAbsolutePath(), "target")
+
+// run 0 fails, the running run 1 and the waiting runs 2 and 3 are cancelled
+assert buildLog.contains("Failing fast: shellcheck run [default.0] found problems, cancelling [3] runs, [3] files will not be checked")
+assert buildLog.contains("cancelledRuns [3]")
+
+// the processes of run 1 (and their children) got killed, as those of run 2 if it got to start on the thread run 0
+// left free before being cancelled; run 3 never started
+assert Files.exists(target.resolve("b-slow.sh.pids"))
+assert !Files.exists(target.resolve("d-slow.sh.pids"))
+["b-slow.sh.pids", "c-slow.sh.pids"].findAll { pidsFile -> Files.exists(target.resolve(pidsFile)) }.each { pidsFile ->
+    def pids = new String(Files.readAllBytes(target.resolve(pidsFile))).trim().split(" ")
+    assert pids.length == 2
+    pids.each { pid ->
+        // killed processes may linger as zombies until reaped
+        def state = ["ps", "-o", "stat=", "-p", pid].execute().text.trim()
+        assert state.isEmpty() || state.startsWith("Z")
+    }
+}
+
+// what run 0 found is reported
+assert buildLog.contains("a-goofy.sh:2:6: info: Double quote to prevent globbing and word splitting. [SC2086]")
+assert buildLog.contains("There are shellcheck problems: [1]/[1] diagnostics with severity [style] or higher")
+return true
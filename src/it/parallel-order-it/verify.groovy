@@ -0,0 +1,37 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+
+def buildLog = new String(Files.readAllBytes(Paths.get(basedir.getAbsolutePath(), "build.log")))
+def pluginOutput = Paths.get(basedir.getAbsolutePath(), "target", "shellcheck-plugin")
+def scripts = ["a.sh", "b.sh", "c.sh", "d.sh"]
+
+// the runs of each execution did run in parallel, completing in the reverse order
+def completions = Files.readAllLines(Paths.get(basedir.getAbsolutePath(), "target", "completions.log"))
+        .collect { file -> Paths.get(file).getFileName().toString() }
+assert completions == scripts.reverse() + scripts.reverse()
+
+def assertInOrder(String log, List<String> markers) {
+    def positions = markers.collect { marker -> log.indexOf(marker) }
+    assert positions.every { position -> position >= 0 }: markers
+    assert positions == positions.sort(false): markers
+}
+
+["tty", "parsed"].each { executionId ->
+    // run n checked the n-th file, and its output went to the n-th captured output file
+    scripts.eachWithIndex { script, runNumber ->
+        def stdout = new String(Files.readAllBytes(pluginOutput.resolve("shellcheck." + executionId + "." + runNumber + ".stdout")))
+        assert stdout.contains("/" + script)
+        assert scripts.findAll { other -> other != script }.every { other -> !stdout.contains("/" + other) }
+    }
+    assert !Files.exists(pluginOutput.resolve("shellcheck." + executionId + ".4.stdout"))
+}
+
+// the captured output of the failed runs is logged in run order
+def ttyLog = buildLog.substring(buildLog.indexOf(":check (tty) @"), buildLog.indexOf(":check (parsed) @"))
+assertInOrder(ttyLog, (0..3).collect { runNumber -> "Shellcheck run [tty." + runNumber + "] returned [1] stdout will follow" })
+assertInOrder(ttyLog, scripts.collect { script -> "/" + script + " line 2:" })
+
+// the diagnostics are logged in run order
+def parsedLog = buildLog.substring(buildLog.indexOf(":check (parsed) @"))
+assertInOrder(parsedLog, scripts.collect { script -> "/" + script + ":2:6: info: Double quote" })
+return true
@@ -0,0 +1,4 @@
+#!/bin/sh
+greet() {
+    echo $1
+}
@@ -0,0 +1,3 @@
+#!/bin/sh
+. ../lib/lib.sh
+greet "$1"
@@ -0,0 +1,17 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+
+def buildLog = new String(Files.readAllBytes(Paths.get(basedir.getAbsolutePath(), "build.log")))
+
+// plain.sh is checked by the first build only, main.sh by both
+def checked = Files.readAllLines(Paths.get(basedir.getAbsolutePath(), "target", "checked.log"))
+assert checked.count("plain.sh") == 1
+assert checked.count("main.sh") == 2
+
+assert buildLog.contains("Result cache: [0] hits, [1] misses, [1] files sourcing or sourced by others not cached")
+assert buildLog.contains("Result cache: [1] hits, [0] misses, [1] files sourcing or sourced by others not cached")
+
+// both builds report both diagnostics, the one on lib.sh found checking main.sh
+assert buildLog.count("plain.sh:2:6: info: Double quote to prevent globbing and word splitting. [SC2086]") == 2
+assert buildLog.count("lib.sh:2:6: info: Double quote to prevent globbing and word splitting. [SC2086]") == 2
+return true
@@ -0,0 +1,13 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+
+def buildLog = new String(Files.readAllBytes(Paths.get(basedir.getAbsolutePath(), "build.log")))
+
+// the 6 runs of the 2 modules never were more than 2 at a time, though module-two alone asks for 3
+def concurrency = Files.readAllLines(Paths.get(basedir.getAbsolutePath(), "target", "concurrency.log"))
+        .collect { line -> Integer.parseInt(line.trim()) }
+assert concurrency.size() == 6
+assert concurrency.max() == 2
+
+assert buildLog.contains("Running at most [2] shellcheck invocations at a time out of [3] as they are shared by all the modules of the parallel build")
+return true
@@ -0,0 +1,28 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+
+def buildLog = new String(Files.readAllBytes(Paths.get(basedir.getAbsolutePath(), "build.log")))
+def pluginOutput = Paths.get(basedir.getAbsolutePath(), "target", "shellcheck-plugin")
+
+// the 8 files are checked in run 0, which times out: its halves are runs 0.0 (a-d, fine) and 0.1 (e-h, times out),
+// then 0.1.0 (e-f, times out), 0.1.0.0 (e, times out) and 0.1.0.1 (f), and 0.1.1 (g-h).
+def runs = Files.list(pluginOutput)
+        .map({ file -> file.getFileName().toString() })
+        .filter({ name -> name.endsWith(".stdout") })
+        .map({ name -> name.substring("shellcheck.default.".length(), name.length() - ".stdout".length()) })
+        .sorted()
+        .collect()
+assert runs == ["0", "0.0", "0.1", "0.1.0", "0.1.0.0", "0.1.0.1", "0.1.1"]
+
+// only the hanging file is not checked
+assert buildLog.contains("Shellcheck run [default.0.1.0.0] timed out after [2] seconds checking [")
+assert buildLog.findAll(~/the file was not checked/).size() == 1
+assert buildLog.contains("e-hang.sh], the file was not checked")
+
+// the diagnostics of the other files are kept
+["b-goofy.sh", "d-goofy.sh", "g-goofy.sh"].each { goofy ->
+    assert buildLog.contains(goofy + ":2:6: info: Double quote to prevent globbing and word splitting. [SC2086]")
+}
+assert buildLog.contains("There are shellcheck problems: [3]/[3] diagnostics with severity [style] or higher")
+assert buildLog.contains("[1]/[4] shellcheck runs did not complete")
+return true
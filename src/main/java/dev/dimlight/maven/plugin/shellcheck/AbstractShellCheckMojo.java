@@ -0,0 +1,1228 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The common part of the goals running the shellcheck binary: resolving the binary, running shellcheck on the files
+ * (chunked, in parallel, skipping the ones that did not change...) and reporting the results.
+ * Subclasses decide which files are checked.
+ */
+public abstract class AbstractShellCheckMojo extends AbstractMojo {
+
+    // the user property bounding the shellcheck processes of all the modules of a parallel build
+    private static final String SESSION_PARALLELISM = "shellcheck.sessionParallelism";
+
+    /**
+     * Skips the plugin execution if set to true.
+     */
+    @Parameter(property = "skip.shellcheck", required = true, defaultValue = "false")
+    private boolean skip;
+
+    /**
+     * The way the plugin should attempt binary resolution
+     */
+    @Parameter(required = true, defaultValue = "download")
+    private BinaryResolutionMethod binaryResolutionMethod;
+
+    /**
+     * When the binary resolution method is "embedded", extract the binary once in the local maven repository (under
+     * a path depending on the shellcheck version and the architecture) and let all projects use it, instead of
+     * extracting it in the build directory of each project. Either way an already extracted binary is reused as long
+     * as it is unchanged.
+     */
+    @Parameter(required = false, defaultValue = "false")
+    private boolean shareEmbeddedBinary;
+
+    /**
+     * The path of the external binary, used only if binaryResolutionMethod is set to "external"
+     *
+     * @see BinaryResolutionMethod
+     */
+    @Parameter(required = false)
+    private File externalBinaryPath;
+
+    /**
+     * The URL at which the release archive containing shellcheck will be downloaded,
+     * used only if binaryResolutionMethod is set to "download"
+     *
+     * @see BinaryResolutionMethod
+     */
+    @Parameter(required = false)
+    private Map<String, URL> releaseArchiveUrls;
+
+    /**
+     * The command line options to use when invoking the shellcheck binary (this should not include the actual
+     * files to check).
+     * <p>
+     * A map is used to avoid having to parse a command line from scratch (which is not as easy as splitting on
+     * whitespace since whitespace might be quoted).
+     * The inconvenience is rather small, since configuration is written and rarely changed.
+     */
+    @Parameter(required = false, defaultValue = "")
+    private List<String> args;
+
+    /**
+     * Name of the file (that will be placed in the plugin output directory) where the shellcheck stdout will be
+     * captured.
+     * It can be a simple filename or, if multiple execution/invocations of the plugin are being configured,
+     * the placeholders "@executionId@" and "@runNumber@" can be used (the runs checking again the two halves of a timed
+     * out run n are numbered n.0 and n.1, see invocationTimeoutSeconds).
+     * Defaults to "shellcheck.@executionId@.@runNumber@.stdout".
+     */
+    @Parameter(required = true, defaultValue = "shellcheck.@executionId@.@runNumber@.stdout")
+    private String capturedStdoutFileName;
+
+    /**
+     * Name of the file (that will be placed in the plugin output directory) where the shellcheck stderr will be
+     * captured.
+     * It can be a simple filename or, if multiple execution/invocations of the plugin are being configured,
+     * the placeholders "@executionId@" and "@runNumber@" can be used (the runs checking again the two halves of a timed
+     * out run n are numbered n.0 and n.1, see invocationTimeoutSeconds).
+     * Defaults to "shellcheck.@executionId@.@runNumber@.stderr".
+     */
+    @Parameter(required = true, defaultValue = "shellcheck.@executionId@.@runNumber@.stderr")
+    private String capturedStderrFileName;
+
+    /**
+     * The max number of lines of the captured stdout (and, separately, stderr) of a failed run that are echoed in
+     * the log, 0 or less meaning no limit (the default, capturedOutputMaxBytes alone bounds what is echoed). The log
+     * tells where the full output is when it gets truncated.
+     */
+    @Parameter(required = false, defaultValue = "0")
+    private int capturedOutputMaxLines;
+
+    /**
+     * The max number of bytes of the captured stdout (and, separately, stderr) of a failed run that are echoed in
+     * the log, 0 or less meaning no limit. The output is streamed to the log, so this also bounds the memory it
+     * takes (a line being held in memory as a whole when there is no limit).
+     */
+    @Parameter(required = false, defaultValue = "1048576")
+    private long capturedOutputMaxBytes;
+
+    /**
+     * Perform multiple invocations of shellcheck, each invocation checking filesPerInvocation file at the time.
+     * Defaults to false, which means that we will perform a single shellcheck invocation passing all files
+     * to be checked. Enable this if you are encountering limits on max args reached for your underlying OS.
+     */
+    @Parameter(required = false, defaultValue = "false")
+    private boolean splitInvocations = false;
+
+    /**
+     * The max number of files to pass to a single shellcheck invocation when splitInvocations is set to true.
+     * Defaults to Short.MAX_VALUE (32767).
+     */
+    @Parameter(required = false)
+    private int filesPerInvocation = Short.MAX_VALUE;
+
+    /**
+     * How to split the files among invocations when splitInvocations is set to true:
+     * "filesCount" (the default) passes at most filesPerInvocation files to each invocation, "commandLineLength"
+     * passes to each invocation as many files as fit in the command line length allowed by the os (ARG_MAX on
+     * unices), keeping some headroom for the environment, so that invocations are as few as possible and never fail
+     * because of too long command lines, "sizeBalanced" splits the files in (at least) as many invocations as the
+     * parallelism, balancing them so that parallel invocations take about the same time. Balancing is based on how
+     * long files took to check in previous executions (recorded in the plugin output directory) and on file size
+     * for files never checked before.
+     */
+    @Parameter(required = false, defaultValue = "filesCount")
+    private ChunkingStrategy chunkingStrategy;
+
+    /**
+     * The max number of shellcheck invocations that can run at the same time when splitInvocations is set to true.
+     * Defaults to the number of available processors (which is also what 0 or negative values mean).
+     * Set this to 1 to run the invocations one after the other.
+     * In parallel reactor builds the processes of all the modules are also bounded together, by the session-wide
+     * "shellcheck.sessionParallelism" user property (-Dshellcheck.sessionParallelism=n, defaulting to the number of
+     * available processors), whatever the parallelism of each module.
+     */
+    @Parameter(required = false)
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The max number of seconds a single shellcheck invocation can run, 0 (the default) meaning no limit.
+     * An invocation that takes longer is killed (along with its child processes) and its files are checked again in
+     * two invocations, half each, and so on until the files responsible are isolated: these are reported as not
+     * checked (and fail the build if failBuildIfWarnings is true), while the other files get checked as usual.
+     * The runs checking the halves of run n are numbered n.0 and n.1 (then n.0.0, n.0.1 and so on), so run numbers
+     * stay the same no matter how the runs are scheduled.
+     * Isolating a file out of an invocation of n files takes about log2(n) more timeouts.
+     */
+    @Parameter(required = false, defaultValue = "0")
+    private int invocationTimeoutSeconds;
+
+    /**
+     * If true, only the files that changed since the last execution (or that were checked by a shellcheck run that
+     * failed) are checked. A file is considered changed if its content, the content of any file it sources (with
+     * "source" or ".", even transitively), the .shellcheckrc that applies to it, the args (or SHELLCHECK_OPTS) or the
+     * shellcheck binary changed.
+     * The fingerprints of the files checked without problems are kept in the plugin output directory, so a clean
+     * build always checks every file.
+     */
+    @Parameter(required = false, defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * If set to a git ref (e.g. "origin/main"), only the files changed with respect to it are checked: the ones that
+     * differ from the merge base of the ref and HEAD (committed or not) and the untracked ones. Useful for pull
+     * request builds. The git command line client is used, on the local repository only (no fetch is performed).
+     */
+    @Parameter(property = "shellcheck.changedSince", required = false)
+    private String changedSince;
+
+    /**
+     * If true, before doing anything else (even resolving the binary) the files to check are compared with the ones
+     * of the last check that found no problems, looking only at their path, size and modification time (and at the
+     * configuration, including the .shellcheckrc files that apply and SHELLCHECK_OPTS). When nothing changed the
+     * execution ends immediately.
+     */
+    @Parameter(required = false, defaultValue = "false")
+    private boolean upToDateCheck;
+
+    /**
+     * How many of the checked scripts that took the most to check are reported at the end of the execution.
+     * Shellcheck only tells how long each invocation took, so only the scripts checked by an invocation of their own
+     * (e.g. with filesPerInvocation set to 1, or isolated by invocationTimeoutSeconds) have a measured time and are
+     * reported. 0 (the default) or less disables the report.
+     */
+    @Parameter(required = false, defaultValue = "0")
+    private int slowestScriptsToReport;
+
+    /**
+     * If true, on linux, the cpu time and peak memory of each shellcheck process are sampled from /proc/&lt;pid&gt;
+     * while it runs, and recorded in the metrics of the execution (and summed up in its summary line).
+     */
+    @Parameter(property = "shellcheck.sampleProcessUsage", required = false, defaultValue = "false")
+    private boolean sampleProcessUsage;
+
+    /**
+     * If true, shellcheck is run with "--format=json1" (replacing any format option in args) and its output is
+     * parsed, while shellcheck runs, into diagnostics that are reported one per line in the log. The captured stdout
+     * files will then contain json1: only the diagnostic counts are kept in memory, the diagnostics are streamed back
+     * from the captured stdout when reporting them.
+     * Parsed diagnostics also allow to fail the build only on diagnostics of a given severity, see failOnSeverity.
+     */
+    @Parameter(required = false, defaultValue = "false")
+    private boolean parseOutput;
+
+    /**
+     * When the output is parsed (see parseOutput) and failBuildIfWarnings is true, the build fails only if there is
+     * at least a diagnostic with this severity or a higher one. One of "error", "warning", "info" and "style" (the
+     * default, meaning any diagnostic fails the build).
+     */
+    @Parameter(required = false, defaultValue = "style")
+    private Severity failOnSeverity;
+
+    /**
+     * If true, the diagnostics shellcheck reports for each file are cached in the plugin output directory (one cache
+     * per execution), keyed by the file content (and the content of the files it sources), the .shellcheckrc that
+     * applies to it, the args (and SHELLCHECK_OPTS) and the shellcheck binary. Files found in the cache are not
+     * checked again, their cached diagnostics are reported (and can fail the build) as if shellcheck had just found
+     * them. Files that source other files, and the files they source, are not cached: when sourced files are followed
+     * the diagnostics of a file can be reported on another one, and a cache keyed by the checked file cannot tell.
+     * Since the output has to be parsed, enabling the cache implies parseOutput.
+     */
+    @Parameter(required = false, defaultValue = "false")
+    private boolean resultCache;
+
+    /**
+     * If true, files that shellcheck would certainly report the same way as other files are not checked, the
+     * diagnostics of the file checked in their place are reported on them too. That's the case of copies of the
+     * same script: files with the same content (and sourcing the same files), the same extension and the same
+     * nearest .shellcheckrc. Since the output has to be parsed, enabling deduplication implies parseOutput.
+     */
+    @Parameter(required = false, defaultValue = "false")
+    private boolean deduplicateContent;
+
+    /**
+     * The max number of files whose diagnostics are kept in the result cache, the least recently used ones are
+     * evicted first.
+     */
+    @Parameter(required = false, defaultValue = "100000")
+    private int resultCacheMaxEntries;
+
+    /**
+     * The max (approximate) size in bytes of the result cache, the least recently used entries are evicted first.
+     */
+    @Parameter(required = false, defaultValue = "67108864")
+    private long resultCacheMaxBytes;
+
+    /**
+     * If true, the build will fail if a shellcheck invocation has a non-zero return value (meaning that it
+     * reported some errors), or, when the output is parsed, if there are diagnostics with failOnSeverity or a higher
+     * severity.
+     */
+    @Parameter(required = true, defaultValue = "false")
+    private boolean failBuildIfWarnings;
+
+    /**
+     * If true (and failBuildIfWarnings is true), as soon as a shellcheck run finds something that fails the build
+     * (see failBuildIfWarnings and failOnSeverity) the runs not started yet are cancelled and the running ones are
+     * killed. What was found until then is reported, the files of the cancelled runs are not checked.
+     */
+    @Parameter(property = "shellcheck.failFast", required = false, defaultValue = "false")
+    private boolean failFast;
+
+    //
+    // non externally configurable stuff
+    //
+
+    @Parameter(required = true, defaultValue = "${project.build.directory}", readonly = true)
+    private File outputDirectory;
+
+    @Parameter(required = true, defaultValue = "${project.basedir}", readonly = true)
+    private File baseDir;
+
+    @Parameter(required = true, defaultValue = "${project}", readonly = true)
+    private MavenProject mavenProject;
+
+    @Parameter(required = true, defaultValue = "${session}", readonly = true)
+    private MavenSession mavenSession;
+
+    // needed to get the execution id (used to discriminate the captured output of multiple runs)
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    private MojoExecution execution;
+
+    // used by the mojo plugin executor that we use to invoke the maven-download-plugin:wget goal.
+    @Component
+    private BuildPluginManager pluginManager;
+
+    // the process slots shared by the modules of a parallel build, if it is one
+    private Optional<Semaphore> processSlots = Optional.empty();
+
+    /**
+     * @return the files to be checked by shellcheck, sorted by some invariant criterion.
+     * @throws MojoExecutionException if the files cannot be found.
+     */
+    protected abstract List<Path> filesToBeChecked() throws MojoExecutionException;
+
+    /**
+     * @return the current project.
+     */
+    protected MavenProject getMavenProject() {
+        return mavenProject;
+    }
+
+    /**
+     * @return the project base directory.
+     */
+    protected File getBaseDir() {
+        return baseDir;
+    }
+
+    /**
+     * @return the execution of this mojo.
+     */
+    protected MojoExecution getExecution() {
+        return execution;
+    }
+
+    /**
+     * @return the paths of the plugin output of the current project.
+     */
+    protected PluginPaths getPluginPaths() {
+        return new PluginPaths(outputDirectory.toPath());
+    }
+
+    /**
+     * @return the lowest severity of the diagnostics failing the build (if failBuildIfWarnings).
+     */
+    protected Severity getFailOnSeverity() {
+        return failOnSeverity;
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        final Log log = getLog();
+        if (skip) {
+            log.info("Skipping plugin execution");
+            return;
+        }
+
+        log.debug("Execution id is [" + execution.getExecutionId() + "]");
+        // in parallel reactor builds the processes of all the modules share the machine
+        final int sessionParallelism = sessionParallelism();
+        processSlots = mavenSession.isParallel()
+            ? Optional.of(SessionProcessSlots.of(mavenSession.getRequest(), sessionParallelism))
+            : Optional.empty();
+        final PluginPaths pluginPaths = new PluginPaths(outputDirectory.toPath());
+
+        try {
+            // where the time goes, saved with the execution outcome
+            final ExecutionMetrics metrics = new ExecutionMetrics(execution.getExecutionId());
+            long phaseStart = System.nanoTime();
+
+            final FlightRecorderEvents.SourceDiscovery discoveryEvent = FlightRecorderEvents.sourceDiscovery(execution.getExecutionId());
+            final List<Path> discoveredFiles = filesToBeChecked();
+            discoveryEvent.end(discoveredFiles.size());
+            phaseStart = metrics.phase("discovery", phaseStart);
+            metrics.count("filesDiscovered", discoveredFiles.size());
+
+            // in pull request builds only the files changed with respect to the base ref are of interest
+            final List<Path> allFilesCheck = changedSince == null || changedSince.trim().isEmpty()
+                ? discoveredFiles
+                : GitChangedFiles.retainChanged(discoveredFiles, GitChangedFiles.since(baseDir.toPath(), changedSince.trim()));
+            if (allFilesCheck != discoveredFiles) {
+                log.info("Changed since [" + changedSince.trim() + "]: [" + allFilesCheck.size() + "]/[" + discoveredFiles.size() + "] files");
+                phaseStart = metrics.phase("changedFiles", phaseStart);
+                metrics.count("filesChangedSince", allFilesCheck.size());
+                if (allFilesCheck.isEmpty()) {
+                    log.info("No changed scripts since [" + changedSince.trim() + "], nothing to check");
+                    saveMetrics(metrics, pluginPaths);
+                    return;
+                }
+            }
+
+            // if nothing changed since the last check that found no problems there's nothing to do, not even
+            // resolving the binary.
+            // The files sourced by the files to check matter too: the source graph of the last execution tells which
+            // they are (a file sourcing something new has changed itself).
+            final SourceGraph sourceGraph = SourceGraph.load(sourceGraphPath(pluginPaths), baseDir.toPath());
+            final Shellcheckrcs shellcheckrcs = new Shellcheckrcs();
+            final Set<Path> sourcedFiles = upToDateCheck ? sourceGraph.dependenciesOf(allFilesCheck) : Collections.emptySet();
+            final UpToDateManifest upToDateManifest = upToDateCheck ? UpToDateManifest.load(upToDateManifestPath(pluginPaths)) : null;
+            final String upToDateStamp = upToDateCheck ? upToDateStamp(allFilesCheck, sourcedFiles, shellcheckrcs) : null;
+            if (upToDateCheck) {
+                phaseStart = metrics.phase("upToDateCheck", phaseStart);
+            }
+            if (upToDateCheck && upToDateManifest.isUpToDate(upToDateStamp)) {
+                log.info("Nothing changed since the last check that found no problems, skipping [" + allFilesCheck.size() + "] files");
+                metrics.count("upToDate", 1);
+                saveMetrics(metrics, pluginPaths);
+                return;
+            }
+
+            // the binary is resolved once per session, the first module (or execution) needing it resolves it for all.
+            final FlightRecorderEvents.BinaryResolution resolutionEvent = FlightRecorderEvents.binaryResolution(execution.getExecutionId(), binaryResolutionMethod);
+            final AtomicBoolean resolvedHere = new AtomicBoolean();
+            final Path binary = SessionBinaries.resolve(mavenSession.getRequest(), binaryResolutionKey(), () -> {
+                resolvedHere.set(true);
+                final BinaryResolver binaryResolver = new BinaryResolver(mavenProject, mavenSession, pluginManager,
+                    outputDirectory.toPath(),
+                    Optional.ofNullable(externalBinaryPath).map(File::toPath),
+                    Optional.ofNullable(releaseArchiveUrls).orElseGet(Collections::emptyMap),
+                    shareEmbeddedBinary ? Optional.of(sharedBinaryDirectory()) : Optional.empty(),
+                    log);
+                return binaryResolver.resolve(binaryResolutionMethod);
+            });
+            resolutionEvent.end(!resolvedHere.get(), binary);
+            log.debug("Shellcheck binary is [" + binary + "]");
+            phaseStart = metrics.phase("binaryResolution", phaseStart);
+
+            // the binary may come from elsewhere (another module, the local repository or an external path) but the
+            // captured output always goes to this project plugin output directory.
+            Files.createDirectories(pluginPaths.getPluginOutputDirectory());
+
+            // the incremental mode, the result cache and deduplication work on file fingerprints
+            final boolean fingerprinting = incremental || resultCache || deduplicateContent;
+            final Map<Path, String> fingerprints = fingerprinting ? fingerprintFiles(binary, allFilesCheck, sourceGraph, shellcheckrcs) : Collections.emptyMap();
+            if (fingerprinting) {
+                phaseStart = metrics.phase("fingerprinting", phaseStart);
+            }
+
+            // in incremental mode only the files whose fingerprint changed since the last clean check are checked
+            final FingerprintIndex fingerprintIndex = incremental ? FingerprintIndex.load(fingerprintIndexPath(pluginPaths)) : null;
+            final List<Path> changedFiles = incremental
+                ? allFilesCheck.stream().filter(file -> !fingerprintIndex.isUpToDate(file, fingerprints.get(file))).collect(Collectors.toList())
+                : allFilesCheck;
+            if (incremental) {
+                log.info("Incremental mode: [" + changedFiles.size() + "]/[" + allFilesCheck.size() + "] files changed or previously failed");
+                metrics.count("filesChangedIncrementally", changedFiles.size());
+                fingerprintIndex.retainAll(discoveredFiles);
+            }
+
+            // diagnostics are logged as they come, only their counts are kept
+            final DiagnosticsLog diagnosticsLog = new DiagnosticsLog();
+
+            // files found in the result cache are not checked, their diagnostics are replayed instead
+            final ResultCache cache = resultCache ? ResultCache.load(resultCachePath(pluginPaths), resultCacheMaxEntries, resultCacheMaxBytes, log) : null;
+            final List<Path> filesToCheck = resultCache ? new ArrayList<>() : changedFiles;
+            final Set<Path> uncachedFiles = resultCache ? sourcingAndSourcedFiles(changedFiles, sourceGraph) : Collections.emptySet();
+            if (resultCache) {
+                for (Path file : changedFiles) {
+                    if (uncachedFiles.contains(file)) {
+                        filesToCheck.add(file);
+                        continue;
+                    }
+                    final Optional<List<Diagnostic>> cachedDiagnostics = cache.get(fingerprints.get(file), file);
+                    if (cachedDiagnostics.isPresent()) {
+                        cachedDiagnostics.get().forEach(diagnosticsLog);
+                    } else {
+                        filesToCheck.add(file);
+                    }
+                }
+                log.info("Result cache: [" + cache.hits() + "] hits, [" + cache.misses() + "] misses, [" + uncachedFiles.size()
+                    + "] files sourcing or sourced by others not cached");
+                diagnosticsLog.replayed = diagnosticsLog.count;
+                metrics.count("cacheHits", cache.hits());
+                metrics.count("cacheMisses", cache.misses());
+            }
+
+            // files that would certainly be reported the same way as others (e.g. copies) are checked only once
+            final DuplicateFiles duplicateFiles = deduplicateContent
+                ? DuplicateFiles.group(filesToCheck, fingerprints::get, shellcheckrcs)
+                : DuplicateFiles.none(filesToCheck);
+            final List<Path> distinctFilesToCheck = duplicateFiles.representatives();
+            if (deduplicateContent) {
+                log.info("Deduplication: [" + duplicateFiles.duplicatesCount() + "]/[" + filesToCheck.size() + "] files are duplicates of other files and are not checked");
+                metrics.count("duplicates", duplicateFiles.duplicatesCount());
+            }
+
+            // the time it took to check files in the past predicts how long they will take now, the history is kept
+            // only if something needs it (balancing the chunks or reporting the slowest scripts)
+            final boolean keepsTimingHistory = (splitInvocations && chunkingStrategy == ChunkingStrategy.sizeBalanced) || slowestScriptsToReport > 0;
+            final Optional<TimingHistory> timingHistory = keepsTimingHistory
+                ? Optional.of(TimingHistory.load(timingHistoryPath(pluginPaths)))
+                : Optional.empty();
+            final Map<Path, Long> sizes = keepsTimingHistory ? fileSizes(distinctFilesToCheck) : Collections.emptyMap();
+            final ToLongFunction<Path> predictedCost = timingHistory.isPresent() ? timingHistory.get().predictedCost(sizes::get) : file -> 0;
+
+            // perform the runs in chunks or a single chunk with everything in it, depending on the splitInvocationConfiguration.
+            // No files means no runs at all: shellcheck refuses to run without files.
+            final List<List<Path>> chunks = new ArrayList<>();
+            if (distinctFilesToCheck.isEmpty()) {
+                log.info(allFilesCheck.isEmpty() ? "No scripts to check" : "No changed scripts to check");
+            } else {
+                final Iterator<List<Path>> runIter = splitInvocations ? chunksOf(distinctFilesToCheck, binary, predictedCost) : Collections.singletonList(distinctFilesToCheck).iterator();
+                runIter.forEachRemaining(chunks::add);
+            }
+            phaseStart = metrics.phase("planning", phaseStart);
+            metrics.count("filesChecked", distinctFilesToCheck.size());
+
+            // run numbers are assigned in chunk order before submission and results are collected in the same order,
+            // so that the captured output files and the results list do not depend on the scheduling.
+            // The chunks predicted to be the slowest are submitted first, so they do not end up last on the critical path.
+            final int threads = Math.max(1, Math.min(parallelism(), chunks.size()));
+            log.debug("Running [" + chunks.size() + "] shellcheck invocations with parallelism [" + threads + "]");
+            if (processSlots.isPresent() && threads > sessionParallelism) {
+                log.info("Running at most [" + sessionParallelism + "] shellcheck invocations at a time out of [" + threads
+                    + "] as they are shared by all the modules of the parallel build (see shellcheck.sessionParallelism)");
+            }
+            final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+                final Thread thread = new Thread(runnable, "shellcheck-" + mavenProject.getArtifactId() + "-" + execution.getExecutionId());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // chunks whose invocation timed out get checked in smaller parts (see checkChunk), hence the checked chunks
+            final List<List<Path>> checkedChunks = new ArrayList<>();
+            final List<Shellcheck.Result> runs = new ArrayList<>();
+            try {
+                final List<Integer> submissionOrder = IntStream.range(0, chunks.size()).boxed()
+                    .sorted(Comparator.comparingLong((Integer runNum) -> chunks.get(runNum).stream().mapToLong(predictedCost).sum())
+                        .reversed().thenComparingInt(runNum -> runNum))
+                    .collect(Collectors.toList());
+                final CompletionService<List<CheckedChunk>> completionService = new ExecutorCompletionService<>(executor);
+                final Map<Future<List<CheckedChunk>>, Integer> pendingRuns = new HashMap<>();
+                for (int runNum : submissionOrder) {
+                    final List<Path> scriptsToCheck = chunks.get(runNum);
+                    final long submittedNanos = System.nanoTime();
+                    pendingRuns.put(completionService.submit(() -> checkChunk(binary, pluginPaths, scriptsToCheck, Integer.toString(runNum), metrics, submittedNanos)),
+                        runNum);
+                }
+                // runs are awaited as they complete, so that failing fast does not wait for the ones that happen to come first
+                final Map<Integer, List<CheckedChunk>> completedRuns = new TreeMap<>();
+                while (!pendingRuns.isEmpty()) {
+                    final Future<List<CheckedChunk>> completedRun = completionService.take();
+                    final List<CheckedChunk> checked = awaitRun(completedRun);
+                    completedRuns.put(pendingRuns.remove(completedRun), checked);
+                    // a bisected chunk may have failed in any of its runs, not necessarily the first one
+                    final Optional<Shellcheck.Result> failedRun = checked.stream()
+                        .map(checkedChunk -> checkedChunk.result)
+                        .filter(this::failsTheBuild)
+                        .findFirst();
+                    if (failBuildIfWarnings && failFast && !pendingRuns.isEmpty() && failedRun.isPresent()) {
+                        final int cancelledFiles = pendingRuns.values().stream().mapToInt(runNum -> chunks.get(runNum).size()).sum();
+                        log.warn("Failing fast: shellcheck run [" + failedRun.get().runId + "] found problems, cancelling ["
+                            + pendingRuns.size() + "] runs, [" + cancelledFiles + "] files will not be checked");
+                        metrics.count("cancelledRuns", pendingRuns.size());
+                        pendingRuns.keySet().forEach(pendingRun -> pendingRun.cancel(true));
+                        // the cancelled runs kill their processes once interrupted
+                        executor.shutdownNow();
+                        executor.awaitTermination(1, TimeUnit.MINUTES);
+                        break;
+                    }
+                }
+                completedRuns.values().forEach(checked -> checked.forEach(checkedChunk -> {
+                    checkedChunks.add(checkedChunk.files);
+                    runs.add(checkedChunk.result);
+                }));
+            } finally {
+                // interrupts (and so kills the processes of) whatever is still running if we are bailing out.
+                executor.shutdownNow();
+            }
+            phaseStart = metrics.phase("checking", phaseStart);
+
+            // go through the outcome for each checked file: with parsed output we know the diagnostics of each file,
+            // otherwise we only know whether the run that checked it was clean (and so the file was).
+            // The diagnostics of each run are streamed back from its captured output: only the files having some are
+            // remembered, and their diagnostics only when they go to the result cache.
+            for (int runNum = 0; runNum < runs.size(); ++runNum) {
+                final Shellcheck.Result run = runs.get(runNum);
+                final boolean caching = resultCache && run.isComplete();
+                final Map<String, Path> checkedFilesByName = new HashMap<>();
+                checkedChunks.get(runNum).forEach(checkedFile -> checkedFilesByName.put(checkedFile.toFile().getAbsolutePath(), checkedFile));
+                final Map<Path, List<Diagnostic>> diagnosticsByFile = new HashMap<>();
+                if (parsesOutput()) {
+                    run.forEachDiagnostic(diagnostic -> {
+                        final Path checkedFile = checkedFilesByName.get(diagnostic.file.toString());
+                        if (checkedFile == null) {
+                            // diagnostics on files we did not ask for (if any) are reported but not cached
+                            diagnosticsLog.accept(diagnostic);
+                            return;
+                        }
+                        // the duplicates of the checked file get the same diagnostics
+                        diagnosticsLog.accept(diagnostic);
+                        duplicateFiles.duplicatesOf(checkedFile).forEach(file -> diagnosticsLog.accept(diagnostic.relocate(file)));
+                        final List<Diagnostic> fileDiagnostics = diagnosticsByFile.computeIfAbsent(checkedFile, file -> new ArrayList<>());
+                        if (caching) {
+                            fileDiagnostics.add(diagnostic);
+                        }
+                    });
+                }
+
+                for (Path checkedFile : checkedChunks.get(runNum)) {
+                    final List<Path> sameFiles = new ArrayList<>();
+                    sameFiles.add(checkedFile);
+                    sameFiles.addAll(duplicateFiles.duplicatesOf(checkedFile));
+                    for (Path file : sameFiles) {
+                        // files checked cleanly are recorded, the others will be checked again next time.
+                        if (incremental) {
+                            final boolean clean = parsesOutput() ? run.isComplete() && !diagnosticsByFile.containsKey(checkedFile) : !run.isNotOk();
+                            if (clean) {
+                                fingerprintIndex.put(file, fingerprints.get(file));
+                            } else {
+                                fingerprintIndex.remove(file);
+                            }
+                        }
+
+                        // the diagnostics of every file checked by a complete run go to the cache, even if there are none
+                        if (caching && !uncachedFiles.contains(file)) {
+                            cache.put(fingerprints.get(file), diagnosticsByFile.getOrDefault(checkedFile, Collections.emptyList()));
+                        }
+                    }
+                }
+            }
+
+            if (timingHistory.isPresent()) {
+                for (int runNum = 0; runNum < runs.size(); ++runNum) {
+                    timingHistory.get().record(checkedChunks.get(runNum), sizes::get, runs.get(runNum).elapsedMillis);
+                }
+                timingHistory.get().retainAll(discoveredFiles);
+                timingHistory.get().save();
+                if (slowestScriptsToReport > 0) {
+                    reportSlowestScripts(timingHistory.get(), checkedChunks);
+                }
+            }
+
+            if (incremental) {
+                fingerprintIndex.save();
+            }
+            if (resultCache) {
+                cache.save();
+            }
+
+            if (upToDateCheck) {
+                final boolean clean = parsesOutput()
+                    ? diagnosticsLog.count == 0 && runs.stream().allMatch(Shellcheck.Result::isComplete)
+                    : runs.stream().noneMatch(Shellcheck.Result::isNotOk);
+                if (clean) {
+                    // the stamp taken before checking is the one to save, unless the sourced files turned out different
+                    if (!fingerprinting) {
+                        sourceGraph.update(allFilesCheck);
+                        sourceGraph.save();
+                    }
+                    final Set<Path> checkedSourcedFiles = sourceGraph.dependenciesOf(allFilesCheck);
+                    upToDateManifest.save(checkedSourcedFiles.equals(sourcedFiles) ? upToDateStamp : upToDateStamp(allFilesCheck, checkedSourcedFiles, shellcheckrcs));
+                } else {
+                    upToDateManifest.invalidate();
+                }
+            }
+
+            metrics.phase("bookkeeping", phaseStart);
+            if (parsesOutput()) {
+                metrics.count("diagnostics", diagnosticsLog.count);
+                metrics.count("replayedDiagnostics", diagnosticsLog.replayed);
+            }
+            metrics.count("failedRuns", runs.stream().filter(Shellcheck.Result::isNotOk).count());
+            saveMetrics(metrics, pluginPaths);
+
+            if (parsesOutput()) {
+                // the diagnostics of the files checked by runs that did not complete may be missing
+                final Set<Path> incompleteFiles = new HashSet<>();
+                for (int runNum = 0; runNum < runs.size(); ++runNum) {
+                    if (!runs.get(runNum).isComplete()) {
+                        for (Path checkedFile : checkedChunks.get(runNum)) {
+                            incompleteFiles.add(checkedFile);
+                            incompleteFiles.addAll(duplicateFiles.duplicatesOf(checkedFile));
+                        }
+                    }
+                }
+                reportDiagnostics(diagnosticsLog, runs, incompleteFiles);
+            } else {
+                reportFailedRuns(runs);
+            }
+
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Logs the captured output of the failed runs and fails the build if configured to do so.
+     *
+     * @param runs all the shellcheck runs.
+     * @throws IOException            if the captured output cannot be read.
+     * @throws MojoExecutionException if there are failures and the build should fail.
+     */
+    private void reportFailedRuns(List<Shellcheck.Result> runs) throws IOException, MojoExecutionException {
+        // inspect the failures and fail the build if configured to do so.,
+        final List<Shellcheck.Result> failures = runs.stream().filter(Shellcheck.Result::isNotOk).collect(Collectors.toList());
+        if (!failures.isEmpty()) {
+            for (Shellcheck.Result failedRun : failures) {
+                logCapturedOutput(failedRun);
+            }
+
+            if (failBuildIfWarnings) {
+                throw new MojoExecutionException("There are shellcheck problems: [" + failures.size() + "]/[" + runs.size() + "] shellcheck runs had non-zero exit codes");
+            }
+        }
+    }
+
+    /**
+     * Logs the captured output of the runs that did not complete and fails the build if configured to do so, the
+     * diagnostics have already been logged.
+     *
+     * @param diagnosticsLog  the counts of all the diagnostics, both from the runs and from the result cache.
+     * @param runs            all the shellcheck runs.
+     * @param incompleteFiles the files checked by the runs that did not complete.
+     * @throws IOException            if the captured output cannot be read.
+     * @throws MojoExecutionException if there are problems and the build should fail.
+     */
+    private void reportDiagnostics(DiagnosticsLog diagnosticsLog, List<Shellcheck.Result> runs, Set<Path> incompleteFiles)
+        throws IOException, MojoExecutionException {
+        diagnosticsLogged(incompleteFiles);
+        final List<Shellcheck.Result> incompleteRuns = runs.stream().filter(run -> !run.isComplete()).collect(Collectors.toList());
+        for (Shellcheck.Result incompleteRun : incompleteRuns) {
+            logCapturedOutput(incompleteRun);
+        }
+
+        if (failBuildIfWarnings && (diagnosticsLog.failing > 0 || !incompleteRuns.isEmpty())) {
+            throw new MojoExecutionException("There are shellcheck problems: [" + diagnosticsLog.failing + "]/[" + diagnosticsLog.count +
+                "] diagnostics with severity [" + failOnSeverity + "] or higher ([" + diagnosticsLog.replayed + "] diagnostics from the result cache), [" +
+                incompleteRuns.size() + "]/[" + runs.size() + "] shellcheck runs did not complete");
+        }
+    }
+
+    /**
+     * Logs a diagnostic.
+     * Diagnostics are logged as they are read, those of the result cache first, then those of each run in the order
+     * shellcheck reported them.
+     *
+     * @param diagnostic the diagnostic.
+     */
+    protected void logDiagnostic(Diagnostic diagnostic) {
+        getLog().warn(diagnostic.toString());
+    }
+
+    /**
+     * Called once all the diagnostics have been logged (see logDiagnostic), before failing the build if needed.
+     *
+     * @param incompleteFiles the files checked by the shellcheck runs that did not complete, whose diagnostics may be
+     *                        missing.
+     * @throws IOException if what was logged cannot be reported.
+     */
+    protected void diagnosticsLogged(Set<Path> incompleteFiles) throws IOException {
+        // everything has been logged already
+    }
+
+    /**
+     * Logs the diagnostics as they come and counts them, the counts are all the failure decision needs.
+     */
+    private final class DiagnosticsLog implements Consumer<Diagnostic> {
+
+        private long count;
+        private long failing;
+        private long replayed;
+
+        @Override
+        public void accept(Diagnostic diagnostic) {
+            logDiagnostic(diagnostic);
+            ++count;
+            if (diagnostic.level.isAtLeast(failOnSeverity)) {
+                ++failing;
+            }
+        }
+    }
+
+    private void logCapturedOutput(Shellcheck.Result failedRun) throws IOException {
+        final Log log = getLog();
+        log.warn("------ Shellcheck run [" + failedRun.runId + "] returned [" + failedRun.exitCode + "] stdout will follow -----------------------------------------");
+        logCapturedOutput(failedRun, "stdout", failedRun.stdout, log::warn);
+        log.warn("------ Shellcheck run [" + failedRun.runId + "] returned [" + failedRun.exitCode + "] stderr will follow -----------------------------------------");
+        logCapturedOutput(failedRun, "stderr", failedRun.stderr, log::error);
+    }
+
+    private void logCapturedOutput(Shellcheck.Result failedRun, String name, Path capturedOutput, Consumer<String> logLine) throws IOException {
+        final long echoedBytes = CapturedOutput.echo(capturedOutput, capturedOutputMaxLines, capturedOutputMaxBytes, logLine);
+        final long size = Files.size(capturedOutput);
+        if (echoedBytes < size) {
+            getLog().warn("------ Shellcheck run [" + failedRun.runId + "] " + name + " truncated, [" + (size - echoedBytes) + "] more bytes in ["
+                + capturedOutput + "] -----------------------------------------");
+        }
+    }
+
+    /**
+     * @param run a shellcheck run.
+     * @return true if, given the configuration, the run found problems that fail the build (if failBuildIfWarnings).
+     */
+    private boolean failsTheBuild(Shellcheck.Result run) {
+        return parsesOutput()
+            ? !run.isComplete() || run.diagnosticCount(failOnSeverity) > 0
+            : run.isNotOk();
+    }
+
+    /**
+     * The files checked by a shellcheck run, along with its result.
+     */
+    private static final class CheckedChunk {
+
+        private final List<Path> files;
+        private final Shellcheck.Result result;
+
+        private CheckedChunk(List<Path> files, Shellcheck.Result result) {
+            this.files = files;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Checks a chunk of files with a shellcheck run. If the run times out the chunk is split in two halves checked
+     * one after the other (recursively), so that only the files that make shellcheck time out on their own are left
+     * unchecked.
+     *
+     * @param binary         the shellcheck binary.
+     * @param pluginPaths    the plugin paths, used to place the captured output files.
+     * @param scriptsToCheck the files to be checked.
+     * @param runNumber      the number of the run, the runs checking the halves of a timed out chunk get the number
+     *                       of its run followed by ".0" and ".1".
+     * @param metrics        where the runs get recorded.
+     * @param submittedNanos when the chunk was submitted.
+     * @return the runs that checked the chunk, with the files each one checked: just one, unless it timed out.
+     * @throws IOException          if something goes wrong while launching shellcheck or capturing its output.
+     * @throws InterruptedException if interrupted while waiting for shellcheck to finish.
+     */
+    private List<CheckedChunk> checkChunk(Path binary, PluginPaths pluginPaths, List<Path> scriptsToCheck, String runNumber,
+                                          ExecutionMetrics metrics, long submittedNanos)
+        throws IOException, InterruptedException {
+        final Shellcheck.Result result = runShellcheck(binary, pluginPaths, scriptsToCheck, runNumber, metrics, submittedNanos);
+        if (!result.timedOut) {
+            return Collections.singletonList(new CheckedChunk(scriptsToCheck, result));
+        }
+        if (scriptsToCheck.size() == 1) {
+            getLog().error("Shellcheck run [" + result.runId + "] timed out after [" + invocationTimeoutSeconds + "] seconds checking ["
+                + scriptsToCheck.get(0) + "], the file was not checked");
+            return Collections.singletonList(new CheckedChunk(scriptsToCheck, result));
+        }
+
+        final int half = scriptsToCheck.size() / 2;
+        // the numbers of the halves derive from the number of the run, not from the order the runs happen to time out in
+        final String firstHalfRunNumber = runNumber + ".0";
+        final String secondHalfRunNumber = runNumber + ".1";
+        getLog().warn("Shellcheck run [" + result.runId + "] timed out after [" + invocationTimeoutSeconds + "] seconds, checking its ["
+            + scriptsToCheck.size() + "] files again in runs [" + firstHalfRunNumber + "] and [" + secondHalfRunNumber + "]");
+        final List<CheckedChunk> checkedChunks = new ArrayList<>();
+        checkedChunks.addAll(checkChunk(binary, pluginPaths, scriptsToCheck.subList(0, half), firstHalfRunNumber, metrics, System.nanoTime()));
+        checkedChunks.addAll(checkChunk(binary, pluginPaths, scriptsToCheck.subList(half, scriptsToCheck.size()), secondHalfRunNumber, metrics,
+            System.nanoTime()));
+        return checkedChunks;
+    }
+
+    /**
+     * Performs a single shellcheck invocation (one run).
+     *
+     * @param binary         the shellcheck binary.
+     * @param pluginPaths    the plugin paths, used to place the captured output files.
+     * @param scriptsToCheck the files to be checked in this run.
+     * @param runNumber      the number of the run, used to discriminate the captured output files.
+     * @return the result of the run.
+     * @throws IOException          if something goes wrong while launching shellcheck or capturing its output.
+     * @throws InterruptedException if interrupted while waiting for shellcheck to finish.
+     */
+    private Shellcheck.Result runShellcheck(Path binary, PluginPaths pluginPaths, List<Path> scriptsToCheck, String runNumber,
+                                            ExecutionMetrics metrics, long submittedNanos)
+        throws IOException, InterruptedException {
+        final Log log = getLog();
+        final String runId = execution.getExecutionId() + "." + runNumber;
+
+        if (processSlots.isPresent()) {
+            processSlots.get().acquire();
+        }
+        final long waitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedNanos);
+        final Shellcheck.Result result;
+        try {
+            log.debug("Running shellcheck [" + runId + "] on [" + scriptsToCheck.size() + "] files");
+            result = Shellcheck.run(
+                runId,
+                binary,
+                effectiveArgs(),
+                scriptsToCheck,
+                pluginPaths.getPathInPluginOutputDirectory(renderTemplatedFilename(capturedStdoutFileName, execution, runNumber)),
+                pluginPaths.getPathInPluginOutputDirectory(renderTemplatedFilename(capturedStderrFileName, execution, runNumber)),
+                parsesOutput(),
+                TimeUnit.SECONDS.toMillis(Math.max(0, invocationTimeoutSeconds)),
+                sampleProcessUsage
+            );
+        } finally {
+            processSlots.ifPresent(Semaphore::release);
+        }
+        log.debug("Shellcheck run [" + result.runId + "] on [" + scriptsToCheck.size() + "] files took [" + result.elapsedMillis + "] millis");
+        metrics.run(runNumber, scriptsToCheck.size(), waitMillis, result);
+        return result;
+    }
+
+    /**
+     * Waits for a submitted run to complete, unwrapping the failure cause (if any).
+     *
+     * @param pendingRun the submitted run.
+     * @param <T>        the type of the result.
+     * @return the result of the run.
+     * @throws IOException          if the run failed doing io.
+     * @throws InterruptedException if the run (or this thread) got interrupted.
+     */
+    private static <T> T awaitRun(Future<T> pendingRun) throws IOException, InterruptedException {
+        try {
+            return pendingRun.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * @param files       some files.
+     * @param sourceGraph the source graph, up to date with the files.
+     * @return the files, among the given ones, that source other files or are sourced by any of the given files.
+     */
+    private static Set<Path> sourcingAndSourcedFiles(List<Path> files, SourceGraph sourceGraph) {
+        final Set<Path> sourcingAndSourced = new HashSet<>();
+        for (Path file : files) {
+            final Set<Path> dependencies = sourceGraph.dependenciesOf(file);
+            if (!dependencies.isEmpty()) {
+                sourcingAndSourced.add(file);
+                sourcingAndSourced.addAll(dependencies);
+            }
+        }
+        sourcingAndSourced.retainAll(files);
+        return sourcingAndSourced;
+    }
+
+    /**
+     * Computes the fingerprints of the given files, each one covering also the files it sources (transitively), so
+     * that a change in a sourced library makes all the scripts depending on it be checked again, and the
+     * .shellcheckrc that applies to it.
+     *
+     * @param binary        the shellcheck binary, part of the fingerprint along with args and SHELLCHECK_OPTS.
+     * @param files         the files to fingerprint.
+     * @param sourceGraph   the source graph, updated and saved.
+     * @param shellcheckrcs where the .shellcheckrc of each file is found.
+     * @return the fingerprint of each file.
+     * @throws IOException if some file cannot be read.
+     */
+    private Map<Path, String> fingerprintFiles(Path binary, List<Path> files, SourceGraph sourceGraph, Shellcheckrcs shellcheckrcs)
+        throws IOException {
+        final String toolFingerprint = FingerprintIndex.toolFingerprint(binary, effectiveArgs(), environmentOptions());
+        final Map<Path, String> fingerprints = new HashMap<>();
+        for (Map.Entry<Path, String> fingerprint : sourceGraph.fingerprints(toolFingerprint, files).entrySet()) {
+            final MessageDigest digest = Digests.update(Digests.sha256(), fingerprint.getValue());
+            fingerprints.put(fingerprint.getKey(), Digests.hex(Digests.update(digest, shellcheckrcs.fingerprint(fingerprint.getKey())).digest()));
+        }
+        sourceGraph.save();
+        return fingerprints;
+    }
+
+    /**
+     * @param files         the files to check.
+     * @param sourcedFiles  the files sourced by the files to check.
+     * @param shellcheckrcs where the .shellcheckrc of each file is found, stamped along with the files.
+     * @return the stamp of the check, for the up-to-date check.
+     * @throws IOException if the stat data of some file cannot be read.
+     */
+    private String upToDateStamp(List<Path> files, Set<Path> sourcedFiles, Shellcheckrcs shellcheckrcs) throws IOException {
+        final List<Path> stampedFiles = new ArrayList<>(files);
+        stampedFiles.addAll(sourcedFiles);
+        stampedFiles.addAll(shellcheckrcs.nearest(files));
+        return UpToDateManifest.stamp(upToDateConfiguration(), stampedFiles);
+    }
+
+    /**
+     * @return the args to pass to shellcheck, i.e. the configured ones with the output format forced to json1 when
+     * the output has to be parsed.
+     */
+    private List<String> effectiveArgs() {
+        final List<String> configuredArgs = Optional.ofNullable(args).orElseGet(Collections::emptyList);
+        return parsesOutput() ? Shellcheck.withFormat(configuredArgs, "json1") : configuredArgs;
+    }
+
+    /**
+     * @return true if the shellcheck output has to be parsed into diagnostics (the result cache and deduplication need
+     * them too).
+     */
+    protected boolean parsesOutput() {
+        return parseOutput || resultCache || deduplicateContent;
+    }
+
+    /**
+     * @return a key identifying the binary that the configured resolution produces, all the executions with the same
+     * key in a session share the same binary.
+     */
+    private String binaryResolutionKey() {
+        final String osArchKey = Architecture.osArchKey();
+        switch (binaryResolutionMethod) {
+            case external:
+                return binaryResolutionMethod + " " + osArchKey + " " + Optional.ofNullable(externalBinaryPath).map(File::getAbsolutePath).orElse("");
+            case download:
+                return binaryResolutionMethod + " " + osArchKey + " " + Optional.ofNullable(releaseArchiveUrls)
+                    .map(urls -> urls.get(osArchKey)).map(URL::toExternalForm).orElse("default");
+            case embedded:
+                return binaryResolutionMethod + " " + osArchKey + " " + (shareEmbeddedBinary ? sharedBinaryDirectory() : "project");
+            default:
+                throw new IllegalStateException("Invalid resolution method: " + binaryResolutionMethod);
+        }
+    }
+
+    /**
+     * @return whatever in the configuration affects the outcome of a check, for the up-to-date check. The binary is
+     * identified by how it is resolved: the embedded one by the plugin version, the downloaded one by its url and the
+     * external one by its stat data. The .shellcheckrc files are stamped along with the files to check.
+     * @throws IOException if the external binary cannot be inspected.
+     */
+    private List<String> upToDateConfiguration() throws IOException {
+        final List<String> configuration = new ArrayList<>();
+        configuration.add(execution.getMojoDescriptor().getPluginDescriptor().getVersion());
+        configuration.add(execution.getMojoDescriptor().getGoal());
+        configuration.add(binaryResolutionKey());
+        if (binaryResolutionMethod == BinaryResolutionMethod.external && externalBinaryPath != null && externalBinaryPath.isFile()) {
+            configuration.add(externalBinaryPath.length() + " " + externalBinaryPath.lastModified());
+        }
+        configuration.addAll(effectiveArgs());
+        configuration.add("SHELLCHECK_OPTS=" + environmentOptions());
+        return configuration;
+    }
+
+    /**
+     * @return the options shellcheck takes from the environment (SHELLCHECK_OPTS), empty if none.
+     */
+    private static String environmentOptions() {
+        return Optional.ofNullable(System.getenv("SHELLCHECK_OPTS")).orElse("");
+    }
+
+    private Path upToDateManifestPath(PluginPaths pluginPaths) {
+        return pluginPaths.getPathInPluginOutputDirectory("shellcheck." + execution.getExecutionId() + ".up-to-date");
+    }
+
+    private Path sharedBinaryDirectory() {
+        return Paths.get(mavenSession.getLocalRepository().getBasedir(), "dev", "dimlight", "shellcheck-maven-plugin", "shellcheck-bin");
+    }
+
+    private Path metricsPath(PluginPaths pluginPaths) {
+        return pluginPaths.getPathInPluginOutputDirectory("shellcheck." + execution.getExecutionId() + ".metrics.json");
+    }
+
+    private void saveMetrics(ExecutionMetrics metrics, PluginPaths pluginPaths) throws IOException {
+        final Path metricsPath = metricsPath(pluginPaths);
+        metrics.save(metricsPath);
+        getLog().info("Shellcheck metrics (in [" + metricsPath + "]): " + metrics.summary());
+    }
+
+    private Path timingHistoryPath(PluginPaths pluginPaths) {
+        return pluginPaths.getPathInPluginOutputDirectory("shellcheck." + execution.getExecutionId() + ".timings");
+    }
+
+    private Path resultCachePath(PluginPaths pluginPaths) {
+        return pluginPaths.getPathInPluginOutputDirectory("shellcheck." + execution.getExecutionId() + ".result-cache");
+    }
+
+    private Path sourceGraphPath(PluginPaths pluginPaths) {
+        return pluginPaths.getPathInPluginOutputDirectory("shellcheck." + execution.getExecutionId() + ".source-graph");
+    }
+
+    private Path fingerprintIndexPath(PluginPaths pluginPaths) {
+        return pluginPaths.getPathInPluginOutputDirectory("shellcheck." + execution.getExecutionId() + ".fingerprints");
+    }
+
+    /**
+     * Splits the files to check according to the configured chunking strategy.
+     *
+     * @param filesToCheck  the files to be checked.
+     * @param binary        the shellcheck binary.
+     * @param predictedCost the predicted cost of checking each file.
+     * @return an iterator over the chunks of files, one per shellcheck invocation.
+     */
+    private Iterator<List<Path>> chunksOf(List<Path> filesToCheck, Path binary, ToLongFunction<Path> predictedCost) {
+        switch (chunkingStrategy) {
+            case commandLineLength:
+                final Architecture arch = Architecture.detect();
+                final long budget = commandLineBudget(arch, binary);
+                getLog().debug("Command line budget for files is [" + budget + "] bytes");
+                return ChunkIterator.over(budget, file -> arch.argumentBytes(file.toFile().getAbsolutePath()), filesToCheck);
+            case sizeBalanced:
+                return BalancedChunks.split(filesToCheck, predictedCost, parallelism(), filesPerInvocation()).iterator();
+            case filesCount:
+            default:
+                return ChunkIterator.over(filesPerInvocation(), filesToCheck);
+        }
+    }
+
+    /**
+     * Logs the files that took the most to check (as measured when checked on their own) among the checked ones.
+     *
+     * @param timingHistory the timing history, updated with the current runs.
+     * @param chunks        the files checked by each run.
+     */
+    private void reportSlowestScripts(TimingHistory timingHistory, List<List<Path>> chunks) {
+        final List<Path> checkedFiles = chunks.stream().flatMap(List::stream).collect(Collectors.toList());
+        final List<Map.Entry<Path, Long>> slowest = timingHistory.slowest(slowestScriptsToReport, checkedFiles);
+        final Log log = getLog();
+        if (slowest.isEmpty()) {
+            log.info("No checked script has been timed on its own, no slowest scripts to report");
+            return;
+        }
+        log.info("Slowest [" + slowest.size() + "] checked scripts (time measured when checked on their own):");
+        for (Map.Entry<Path, Long> timing : slowest) {
+            log.info("  [" + TimeUnit.MICROSECONDS.toMillis(timing.getValue()) + "] millis " + timing.getKey().toFile().getAbsolutePath());
+        }
+    }
+
+    private static Map<Path, Long> fileSizes(List<Path> files) throws IOException {
+        final Map<Path, Long> sizes = new HashMap<>();
+        for (Path file : files) {
+            sizes.put(file, Files.size(file));
+        }
+        return sizes;
+    }
+
+    /**
+     * @param arch   the current architecture.
+     * @param binary the shellcheck binary.
+     * @return how many bytes of the command line are left for the files to check, once the binary, the args and the
+     * environment have been accounted for.
+     */
+    private long commandLineBudget(Architecture arch, Path binary) {
+        // the same headroom posix recommends for xargs, in case the environment changes a bit when forking
+        final long headroom = 2048;
+        long budget = arch.maxArgumentsBytes() - arch.environmentBytes(System.getenv()) - headroom;
+        budget -= arch.argumentBytes(binary.toFile().getAbsolutePath());
+        for (String arg : effectiveArgs()) {
+            budget -= arch.argumentBytes(arg);
+        }
+        return Math.max(1, budget);
+    }
+
+    /**
+     * @return how many shellcheck processes can run at the same time across all the modules of a parallel build: the
+     * same for all of them, as it comes from the user (or system) properties of the session.
+     * @throws MojoExecutionException if shellcheck.sessionParallelism is not a number.
+     */
+    private int sessionParallelism() throws MojoExecutionException {
+        final String value = mavenSession.getUserProperties().getProperty(SESSION_PARALLELISM,
+            mavenSession.getSystemProperties().getProperty(SESSION_PARALLELISM, "0"));
+        final int sessionParallelism;
+        try {
+            sessionParallelism = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new MojoExecutionException("Invalid " + SESSION_PARALLELISM + " [" + value + "], expected a number", e);
+        }
+        return sessionParallelism <= 0 ? Runtime.getRuntime().availableProcessors() : sessionParallelism;
+    }
+
+    private int parallelism() {
+        return parallelism <= 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+    }
+
+    private int filesPerInvocation() {
+        return filesPerInvocation <= 0 ? Integer.MAX_VALUE : filesPerInvocation;
+    }
+
+    private String renderTemplatedFilename(String fileName, MojoExecution execution, String runNumber) {
+        // "shellcheck.@executionId@.@runNumber@.stdout")
+        return fileName
+            .replace("@executionId@", execution.getExecutionId())
+            .replace("@runNumber@", runNumber);
+    }
+}
@@ -22,12 +22,16 @@ package dev.dimlight.maven.plugin.shellcheck;
  * #L%
  */
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
 
 /**
  * Light-hearted os/arch detection, just enough to pick up the shellcheck binary.
@@ -65,6 +69,9 @@ public enum Architecture {
      */
     unsupported;
 
+    // the limit of CreateProcess, in chars
+    private static final long WINDOWS_MAX_COMMAND_LINE = 32767;
+
     /**
      * Returns the currently os/arch key identifier.
      * This identifier is printed as part of the plugin execution and can be used to provide different download urls
@@ -208,6 +215,79 @@ public enum Architecture {
         return "";
     }
 
+    /**
+     * @return the max size (in bytes) the arguments of a new process can take, environment included: ARG_MAX on
+     * unices (as reported by "getconf ARG_MAX" or, failing that, a conservative guess) and the max command line length
+     * on windows. Architectures with no embedded binary (e.g. running an external one) get the limit of their os.
+     */
+    public long maxArgumentsBytes() {
+        switch (this) {
+            case unsupported:
+                return System.getProperty("os.name", "").startsWith("Windows") ? WINDOWS_MAX_COMMAND_LINE : UnixArgMax.VALUE;
+            case Windows_x86:
+                return WINDOWS_MAX_COMMAND_LINE;
+            default:
+                return UnixArgMax.VALUE;
+        }
+    }
+
+    /**
+     * @param arg a process argument.
+     * @return how much the argument takes out of {@link #maxArgumentsBytes()}.
+     */
+    public long argumentBytes(String arg) {
+        if (this.equals(Windows_x86)) {
+            // the separating space and the quotes that may be needed
+            return arg.length() + 3L;
+        }
+        // the string, its terminator and the pointer to it in argv
+        return arg.getBytes(StandardCharsets.UTF_8).length + 1L + 8L;
+    }
+
+    /**
+     * @param environment the environment a new process will inherit.
+     * @return how much the environment takes out of {@link #maxArgumentsBytes()}.
+     */
+    public long environmentBytes(Map<String, String> environment) {
+        if (this.equals(Windows_x86)) {
+            // the environment block does not count towards the command line length
+            return 0;
+        }
+        long bytes = 0;
+        for (Map.Entry<String, String> variable : environment.entrySet()) {
+            bytes += argumentBytes(variable.getKey() + "=" + variable.getValue());
+        }
+        return bytes;
+    }
+
+    /**
+     * Lazily queries ARG_MAX, once.
+     */
+    private static final class UnixArgMax {
+
+        // the fixed ARG_MAX of older linux kernels, lower than the limits of any supported os.
+        private static final long FALLBACK = 131072;
+
+        private static final long VALUE = query();
+
+        private static long query() {
+            try {
+                final Process process = new ProcessBuilder("getconf", "ARG_MAX").redirectErrorStream(true).start();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    final String line = reader.readLine();
+                    if (process.waitFor() == 0 && line != null) {
+                        return Long.parseLong(line.trim());
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // fall through, unlimited or unknown
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return FALLBACK;
+        }
+    }
+
     private static String notSupportedMessage(String prefix) {
         return prefix + " os.name [" + System.getProperty("os.name") + "]" +
                 " os.arch [" + System.getProperty("os.arch") + "]";
@@ -0,0 +1,96 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+
+/**
+ * Splits items in a given number of chunks with (roughly) the same total cost, so that when the chunks are processed
+ * in parallel they all take about the same time.
+ * <p>
+ * This is the classic longest-processing-time-first heuristic: items are taken from the most to the least costly and
+ * each one goes to the chunk with the lowest total cost so far. Ties are always broken the same way, so the same
+ * items with the same costs always give the same chunks.
+ */
+public final class BalancedChunks {
+
+    private BalancedChunks() {
+    }
+
+    /**
+     * @param items        the items to split, in their natural order (used to break ties and to order each chunk).
+     * @param cost         the (estimated) cost of processing each item.
+     * @param chunkCount   the number of chunks wanted.
+     * @param maxChunkSize the max number of items in a chunk, it wins over chunkCount if the items would not fit.
+     * @param <T>          the type of the items.
+     * @return the chunks, none of them empty, each one with its items in their original relative order.
+     */
+    public static <T> List<List<T>> split(List<T> items, ToLongFunction<? super T> cost, int chunkCount, int maxChunkSize) {
+        if (chunkCount <= 0 || maxChunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk count and size must be positive: [" + chunkCount + "], [" + maxChunkSize + "]");
+        }
+        final int bins = (int) Math.min(items.size(), Math.max(chunkCount, ((long) items.size() + maxChunkSize - 1) / maxChunkSize));
+
+        // items are handled by their original position, to break ties and to restore the original order in each chunk
+        final List<Integer> byCost = new ArrayList<>(items.size());
+        final long[] costs = new long[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            costs[i] = cost.applyAsLong(items.get(i));
+            byCost.add(i);
+        }
+        byCost.sort(Comparator.comparingLong((Integer i) -> costs[i]).reversed().thenComparingInt(i -> i));
+
+        final List<List<Integer>> chunks = new ArrayList<>(bins);
+        final long[] loads = new long[bins];
+        final int[] sizes = new int[bins];
+        final PriorityQueue<Integer> lightest = new PriorityQueue<>(Math.max(1, bins),
+            Comparator.comparingLong((Integer bin) -> loads[bin]).thenComparingInt(bin -> sizes[bin]).thenComparingInt(bin -> bin));
+        for (int bin = 0; bin < bins; bin++) {
+            chunks.add(new ArrayList<>());
+            lightest.add(bin);
+        }
+
+        for (int item : byCost) {
+            final int bin = lightest.remove();
+            chunks.get(bin).add(item);
+            loads[bin] += costs[item];
+            sizes[bin]++;
+            if (sizes[bin] < maxChunkSize) {
+                lightest.add(bin);
+            }
+        }
+
+        final List<List<T>> out = new ArrayList<>(bins);
+        for (List<Integer> chunk : chunks) {
+            chunk.sort(Comparator.naturalOrder());
+            final List<T> chunkItems = new ArrayList<>(chunk.size());
+            chunk.forEach(i -> chunkItems.add(items.get(i)));
+            out.add(chunkItems);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,76 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a binary resolution, only to be used through {@link FlightRecorderEvents}.
+ */
+@Name("dev.dimlight.shellcheck.BinaryResolution")
+@Label("Shellcheck Binary Resolution")
+@Description("Resolution of the shellcheck binary by the shellcheck-maven-plugin")
+@Category({"Maven", "Shellcheck"})
+@StackTrace(false)
+@SuppressFBWarnings(value = {"URF_UNREAD_FIELD"}, justification = "Event fields are read by the flight recorder.")
+final class BinaryResolutionEvent extends Event {
+
+    @Label("Execution Id")
+    String executionId;
+
+    @Label("Method")
+    String method;
+
+    @Label("Cache Hit")
+    @Description("True if the binary had already been resolved in the maven session")
+    boolean cacheHit;
+
+    @Label("Binary")
+    String binary;
+
+    static FlightRecorderEvents.BinaryResolution start(String executionId, String method) {
+        final BinaryResolutionEvent event = new BinaryResolutionEvent();
+        if (!event.isEnabled()) {
+            return (cacheHit, binary) -> {
+            };
+        }
+        event.executionId = executionId;
+        event.method = method;
+        event.begin();
+        return (cacheHit, binary) -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.cacheHit = cacheHit;
+                event.binary = binary.toString();
+                event.commit();
+            }
+        };
+    }
+}
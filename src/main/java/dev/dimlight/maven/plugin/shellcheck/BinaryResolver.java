@@ -33,14 +33,22 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.JarURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -60,6 +68,10 @@ import static org.twdata.maven.mojoexecutor.MojoExecutor.version;
  */
 public class BinaryResolver {
 
+    // the download-maven-plugin caches archives in a directory shared by all the projects, downloads are rare enough
+    // (once per session and url) to be simply serialized.
+    private static final Object DOWNLOAD_LOCK = new Object();
+
     private final Log log;
     private final MavenProject mavenProject;
     private final MavenSession mavenSession;
@@ -68,23 +80,28 @@ public class BinaryResolver {
     private final Architecture arch;
     private final PluginPaths pluginPaths;
     private final Map<String, URL> releaseArchiveUrls;
+    private final Optional<Path> sharedBinaryDirectory;
 
     /**
-     * @param mavenProject         maven component for the delegated plugin download
-     * @param mavenSession         maven component for the delegated plugin download
-     * @param pluginManager        maven component for the delegated plugin download
-     * @param mavenTargetDirectory the path to the current project target directory
-     * @param externalBinaryPath   the path to the external binary
-     * @param releaseArchiveUrl    the url where to find the wanted release of shellcheck
-     * @param log                  a maven logger
+     * @param mavenProject          maven component for the delegated plugin download
+     * @param mavenSession          maven component for the delegated plugin download
+     * @param pluginManager         maven component for the delegated plugin download
+     * @param mavenTargetDirectory  the path to the current project target directory
+     * @param externalBinaryPath    the path to the external binary
+     * @param releaseArchiveUrl     the url where to find the wanted release of shellcheck
+     * @param sharedBinaryDirectory where to extract the embedded binary once for all the projects, if present,
+     *                              instead of extracting it in the project target directory
+     * @param log                   a maven logger
      */
     @SuppressFBWarnings(value = {"EI_EXPOSE_REP2"}, justification = "We know what we're doing, spotbugs does not.")
     public BinaryResolver(MavenProject mavenProject, MavenSession mavenSession, BuildPluginManager pluginManager,
                           Path mavenTargetDirectory,
                           Optional<Path> externalBinaryPath,
                           Map<String, URL> releaseArchiveUrl,
+                          Optional<Path> sharedBinaryDirectory,
                           Log log) {
         this.mavenProject = mavenProject;
+        this.sharedBinaryDirectory = sharedBinaryDirectory;
         this.mavenSession = mavenSession;
         this.pluginManager = pluginManager;
         this.releaseArchiveUrls = Collections.unmodifiableMap(releaseArchiveUrl);
@@ -153,24 +170,26 @@ public class BinaryResolver {
         log.info("shellcheck release will be fetched at [" + url + "]");
 
         final Path downloadAndUnpackPath = pluginPaths.getPluginOutputDirectory();
-        executeMojo(
-            plugin(
-                groupId("com.googlecode.maven-download-plugin"),
-                artifactId("download-maven-plugin"),
-                version("1.6.0")
-            ),
-            goal("wget"),
-            configuration(
-                element(name("uri"), url), // url is an alias!
-                element(name("unpack"), "true"),
-                element(name("outputDirectory"), downloadAndUnpackPath.toFile().getAbsolutePath())
-            ),
-            executionEnvironment(
-                mavenProject,
-                mavenSession,
-                pluginManager
-            )
-        );
+        synchronized (DOWNLOAD_LOCK) {
+            executeMojo(
+                plugin(
+                    groupId("com.googlecode.maven-download-plugin"),
+                    artifactId("download-maven-plugin"),
+                    version("1.6.0")
+                ),
+                goal("wget"),
+                configuration(
+                    element(name("uri"), url), // url is an alias!
+                    element(name("unpack"), "true"),
+                    element(name("outputDirectory"), downloadAndUnpackPath.toFile().getAbsolutePath())
+                ),
+                executionEnvironment(
+                    mavenProject,
+                    mavenSession,
+                    pluginManager
+                )
+            );
+        }
 
         final Path expectedDownloadedBinary = guessUnpackedBinary(downloadAndUnpackPath, arch);
         arch.makeExecutable(expectedDownloadedBinary);
@@ -180,38 +199,145 @@ public class BinaryResolver {
 
     /**
      * Extracts the shellcheck binary choosing from the binaries embedded in the jar according to the detected arch.
+     * <p>
+     * A stamp file, written next to the extracted binary, records which embedded binary was extracted and the size and
+     * modification time of the extracted file: if it still matches, the binary extracted by a previous execution is
+     * reused instead of being extracted again.
      *
      * @return the path to the usable, architecture-dependent, shellcheck binary.
      * @throws IOException            if something goes bad while extracting and copying to the project build directory.
      * @throws MojoExecutionException if the extracted file cannot be read or executed.
      */
-    // a false positive, javac in java 11+ due to redundant null checks in try-with-resources synthesized finally
-    @SuppressFBWarnings("RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE")
     private Path extractEmbeddedShellcheckBinary() throws IOException, MojoExecutionException {
         log.debug("Detected arch is [" + arch + "]");
 
         final String binaryTargetName = "shellcheck" + arch.idiomaticExecutableSuffix();
-        final Path binaryPath = pluginPaths.getPathInPluginOutputDirectory(binaryTargetName);
-
-        final boolean created = binaryPath.toFile().mkdirs();
-        log.debug("Path [" + binaryPath + "] was created? [" + created + "]");
+        final Path binaryPath = sharedBinaryDirectory
+            .map(directory -> directory.resolve(Shellcheck.VERSION).resolve(arch.name()).resolve(binaryTargetName))
+            .orElseGet(() -> pluginPaths.getPathInPluginOutputDirectory(binaryTargetName));
+        final Path stampPath = Paths.get(binaryPath.toAbsolutePath() + ".stamp");
 
-        // copy from inside the jar to /target/shellcheck
         final String binResourcePath = arch.embeddedBinPath();
         log.debug("Will try to use binary [" + binResourcePath + "]");
-        try (final InputStream resourceAsStream = getClass().getResourceAsStream(binResourcePath)) {
-            if (resourceAsStream == null) {
-                throw new MojoExecutionException("No embedded binary found for shellcheck");
-            }
-            Files.copy(resourceAsStream, binaryPath, StandardCopyOption.REPLACE_EXISTING);
+        final URL binResource = getClass().getResource(binResourcePath);
+        if (binResource == null) {
+            throw new MojoExecutionException("No embedded binary found for shellcheck");
+        }
+        final String resourceStamp = resourceStamp(binResourcePath, binResource);
+
+        final String currentStamp = binaryStamp(resourceStamp, binaryPath);
+        if (!currentStamp.isEmpty() && currentStamp.equals(readStamp(stampPath))) {
+            log.debug("Reusing the binary already extracted at [" + binaryPath + "]");
+            return validateBinaryPath(binaryPath, BinaryResolutionMethod.embedded);
         }
 
-        // make the extracted file executable
-        arch.makeExecutable(binaryPath);
+        extract(binResource, binaryPath);
+        writeStamp(stampPath, binaryStamp(resourceStamp, binaryPath));
 
         return validateBinaryPath(binaryPath, BinaryResolutionMethod.embedded);
     }
 
+    /**
+     * Copies the embedded binary to a temporary file that is then moved in place, so that whoever is using the
+     * binary at the same time (e.g. other builds sharing it) never sees a partially written file.
+     *
+     * @param binResource the embedded binary.
+     * @param binaryPath  where to extract the binary.
+     * @throws IOException if the binary cannot be extracted.
+     */
+    // a false positive, javac in java 11+ due to redundant null checks in try-with-resources synthesized finally
+    @SuppressFBWarnings("RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE")
+    private void extract(URL binResource, Path binaryPath) throws IOException {
+        final Path directory = binaryPath.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        log.debug("Extracting the embedded binary to [" + binaryPath + "]");
+
+        // copy from inside the jar to /target/shellcheck
+        final Path tmp = temporarySibling(binaryPath);
+        try {
+            try (final InputStream resourceAsStream = binResource.openStream()) {
+                Files.copy(resourceAsStream, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            // make the extracted file executable
+            arch.makeExecutable(tmp);
+
+            try {
+                Files.move(tmp, binaryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, binaryPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Identifies an embedded binary without reading it: when it comes from the plugin jar the size and crc of the jar
+     * entry are used, otherwise (e.g. when running from the classes directory) its size and modification time.
+     *
+     * @param binResourcePath the path of the embedded binary.
+     * @param binResource     the embedded binary.
+     * @return a string identifying the embedded binary.
+     * @throws IOException if the embedded binary cannot be inspected.
+     */
+    private static String resourceStamp(String binResourcePath, URL binResource) throws IOException {
+        final URLConnection connection = binResource.openConnection();
+        connection.setUseCaches(false);
+        if (connection instanceof JarURLConnection) {
+            final JarURLConnection jarConnection = (JarURLConnection) connection;
+            // without caches the jar file is opened for this connection only, it must not be left open (and locked)
+            try (JarFile jarFile = jarConnection.getJarFile()) {
+                final JarEntry entry = jarFile.getJarEntry(jarConnection.getEntryName());
+                if (entry == null) {
+                    throw new IOException("Cannot find [" + jarConnection.getEntryName() + "] in [" + jarFile.getName() + "]");
+                }
+                return Shellcheck.VERSION + " " + binResourcePath + " " + entry.getSize() + " " + Long.toHexString(entry.getCrc());
+            }
+        }
+        try (InputStream ignored = connection.getInputStream()) {
+            return Shellcheck.VERSION + " " + binResourcePath + " " + connection.getContentLengthLong()
+                + " " + connection.getLastModified();
+        }
+    }
+
+    /**
+     * @param resourceStamp the stamp of the embedded binary.
+     * @param binaryPath    the extracted binary.
+     * @return the stamp of the embedded binary followed by the size and modification time of the extracted binary, or
+     * an empty string if the binary has not been extracted.
+     * @throws IOException if the extracted binary cannot be inspected.
+     */
+    private static String binaryStamp(String resourceStamp, Path binaryPath) throws IOException {
+        if (!Files.isRegularFile(binaryPath)) {
+            return "";
+        }
+        return resourceStamp + "\n" + Files.size(binaryPath) + " " + Files.getLastModifiedTime(binaryPath).toMillis();
+    }
+
+    private static String readStamp(Path stampPath) throws IOException {
+        if (!Files.isRegularFile(stampPath)) {
+            return "";
+        }
+        return new String(Files.readAllBytes(stampPath), StandardCharsets.UTF_8);
+    }
+
+    private static Path temporarySibling(Path path) {
+        return Paths.get(path.toAbsolutePath() + "." + UUID.randomUUID() + ".tmp");
+    }
+
+    private static void writeStamp(Path stampPath, String stamp) throws IOException {
+        final Path tmp = temporarySibling(stampPath);
+        try {
+            Files.write(tmp, stamp.getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, stampPath, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
     /**
      * Walks the files in fromPath to find what is likely the shellcheck binary.
      * This is done cause the windows released archive has a different structure (directory and binary-name wise).
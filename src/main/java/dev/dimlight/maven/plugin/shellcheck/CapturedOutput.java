@@ -0,0 +1,117 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Echoes the captured output of shellcheck runs, streaming it line by line so that memory does not depend on how
+ * big the output is.
+ */
+final class CapturedOutput {
+
+    private CapturedOutput() {
+    }
+
+    /**
+     * Passes the lines of a captured output file to a consumer, one at a time, up to the given limits.
+     * A line cut by the bytes limit is passed as far as it goes, up to the last whole (UTF-8) character.
+     *
+     * @param file         the captured output file.
+     * @param maxLines     the max number of lines to pass, 0 or less meaning no limit.
+     * @param maxBytes     the max number of bytes to read, 0 or less meaning no limit (but then a line is held in
+     *                     memory as a whole, however long it is).
+     * @param lineConsumer what gets the lines, without their line terminator.
+     * @return how many bytes of the file were echoed, equal to its size if it was echoed as a whole.
+     * @throws IOException if the file cannot be read.
+     */
+    static long echo(Path file, long maxLines, long maxBytes, Consumer<String> lineConsumer) throws IOException {
+        final long lineLimit = maxLines <= 0 ? Long.MAX_VALUE : maxLines;
+        final long byteLimit = maxBytes <= 0 ? Long.MAX_VALUE : maxBytes;
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long lines = 0;
+        long bytes = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            final byte[] buffer = new byte[8192];
+            int read = 0;
+            while (lines < lineLimit && bytes < byteLimit && (read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read && lines < lineLimit && bytes < byteLimit; ++i) {
+                    ++bytes;
+                    if (buffer[i] == '\n') {
+                        lineConsumer.accept(decoded(line));
+                        line.reset();
+                        ++lines;
+                    } else {
+                        line.write(buffer[i]);
+                    }
+                }
+            }
+        }
+        // the last line, if not terminated or cut by the bytes limit (which may fall within a character)
+        if (line.size() > 0) {
+            final byte[] lastLine = line.toByteArray();
+            final int length = bytes >= byteLimit ? wholeCharactersLength(lastLine) : lastLine.length;
+            bytes -= lastLine.length - length;
+            line.reset();
+            line.write(lastLine, 0, length);
+            if (length > 0) {
+                lineConsumer.accept(decoded(line));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @param utf8 UTF-8 encoded bytes, possibly cut within a character.
+     * @return how many bytes there are up to the last whole character: the length of the bytes without a trailing
+     * incomplete multi-byte sequence.
+     */
+    static int wholeCharactersLength(byte[] utf8) {
+        // a sequence is at most 4 bytes long: look for its lead byte among the last ones
+        for (int i = utf8.length - 1; i >= 0 && i >= utf8.length - 4; --i) {
+            final int b = utf8[i] & 0xff;
+            if (b < 0x80) {
+                return utf8.length; // ascii, the sequence before it (if any) was complete
+            }
+            if (b >= 0xc0) {
+                final int sequenceLength = b >= 0xf0 ? 4 : b >= 0xe0 ? 3 : 2;
+                return utf8.length - i >= sequenceLength ? utf8.length : i;
+            }
+            // a continuation byte, the lead byte comes before it
+        }
+        return utf8.length;
+    }
+
+    private static String decoded(ByteArrayOutputStream line) {
+        final byte[] bytes = line.toByteArray();
+        final int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
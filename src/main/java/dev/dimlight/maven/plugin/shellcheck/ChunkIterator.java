@@ -27,9 +27,11 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.ToLongFunction;
 
 /**
- * A stateful decorator to divide a list in chunks of a (at most) given size.
+ * A stateful decorator to divide a list in chunks of a (at most) given size and, optionally, of a (at most) given
+ * weight.
  *
  * @param <T> the type of elements in the original list.
  * @author Marco Nicolini
@@ -39,12 +41,23 @@ public class ChunkIterator<T> implements Iterator<List<T>> {
 
     private final Iterator<T> iterator;
     private final int chunkSize;
+    private final long maxChunkWeight;
+    private final ToLongFunction<? super T> weigher;
 
-    private ChunkIterator(int chunkSize, Iterator<T> iter) {
+    // the element that did not fit in the previous chunk (if any)
+    private T pending;
+    private boolean hasPending;
+
+    private ChunkIterator(int chunkSize, long maxChunkWeight, ToLongFunction<? super T> weigher, Iterator<T> iter) {
         if (chunkSize <= 0) {
             throw new IllegalArgumentException("Chunk size must be positive: [" + chunkSize + "]");
         }
+        if (maxChunkWeight <= 0) {
+            throw new IllegalArgumentException("Chunk weight must be positive: [" + maxChunkWeight + "]");
+        }
         this.chunkSize = chunkSize;
+        this.maxChunkWeight = maxChunkWeight;
+        this.weigher = weigher;
         this.iterator = iter;
     }
 
@@ -55,20 +68,44 @@ public class ChunkIterator<T> implements Iterator<List<T>> {
      * @return an iterator that will group items in chunks of (maximum) given chunk size.
      */
     public static <T> Iterator<List<T>> over(int chunkSize, Iterable<T> iterable) {
-        return new ChunkIterator<>(chunkSize, iterable.iterator());
+        return new ChunkIterator<>(chunkSize, Long.MAX_VALUE, item -> 0L, iterable.iterator());
+    }
+
+    /**
+     * @param maxChunkWeight the max weight of a chunk, i.e. the max sum of the weights of its items. An item that is
+     *                       heavier than this on its own still makes a chunk (of one item).
+     * @param weigher        the function giving the weight of each item.
+     * @param iterable       the iterable we want to iterate over (in chunk)
+     * @param <T>            the type of elements in the iterable
+     * @return an iterator that will group consecutive items in chunks of (maximum) given weight.
+     */
+    public static <T> Iterator<List<T>> over(long maxChunkWeight, ToLongFunction<? super T> weigher, Iterable<T> iterable) {
+        return new ChunkIterator<>(Integer.MAX_VALUE, maxChunkWeight, weigher, iterable.iterator());
     }
 
     @Override
     public boolean hasNext() {
-        return iterator.hasNext();
+        return hasPending || iterator.hasNext();
     }
 
     @Override
     public List<T> next() {
         int currentChunkSize = 0;
+        long currentChunkWeight = 0;
         final ArrayList<T> out = chunkSize < 2048 ? new ArrayList<>(chunkSize) : new ArrayList<>();
-        while (iterator.hasNext() && currentChunkSize < chunkSize) {
-            out.add(iterator.next());
+        while (hasNext() && currentChunkSize < chunkSize) {
+            final T item = hasPending ? pending : iterator.next();
+            hasPending = false;
+            pending = null;
+
+            final long weight = weigher.applyAsLong(item);
+            if (currentChunkSize > 0 && currentChunkWeight + weight > maxChunkWeight) {
+                pending = item;
+                hasPending = true;
+                break;
+            }
+            out.add(item);
+            currentChunkWeight += weight;
             currentChunkSize++;
         }
         return out;
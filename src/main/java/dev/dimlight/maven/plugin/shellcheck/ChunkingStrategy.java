@@ -0,0 +1,45 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+/**
+ * The ways the files to check can be split among shellcheck invocations, when splitting is enabled.
+ */
+public enum ChunkingStrategy {
+
+    /**
+     * Each invocation checks at most filesPerInvocation files.
+     */
+    filesCount,
+
+    /**
+     * Each invocation checks as many files as fit in the max command line length allowed by the os.
+     */
+    commandLineLength,
+
+    /**
+     * Files are split in (at least) as many invocations as the parallelism, so that each one has roughly the same
+     * amount of work judging by file sizes. Each invocation still checks at most filesPerInvocation files.
+     */
+    sizeBalanced
+}
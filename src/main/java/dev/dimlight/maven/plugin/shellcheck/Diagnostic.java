@@ -0,0 +1,94 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.nio.file.Path;
+
+/**
+ * A single problem reported by shellcheck on a file.
+ */
+public final class Diagnostic {
+
+    /**
+     * The file the diagnostic is about.
+     */
+    public final Path file;
+
+    /**
+     * The line (1-based) where the problem starts.
+     */
+    public final int line;
+
+    /**
+     * The column (1-based) where the problem starts.
+     */
+    public final int column;
+
+    /**
+     * The severity of the problem.
+     */
+    public final Severity level;
+
+    /**
+     * The shellcheck code of the problem, i.e. 2086 for SC2086.
+     */
+    public final int code;
+
+    /**
+     * The human-readable description of the problem.
+     */
+    public final String message;
+
+    /**
+     * @param file    the file the diagnostic is about.
+     * @param line    the line where the problem starts.
+     * @param column  the column where the problem starts.
+     * @param level   the severity of the problem.
+     * @param code    the shellcheck code.
+     * @param message the description of the problem.
+     */
+    public Diagnostic(Path file, int line, int column, Severity level, int code, String message) {
+        this.file = file;
+        this.line = line;
+        this.column = column;
+        this.level = level;
+        this.code = code;
+        this.message = message;
+    }
+
+    /**
+     * @param otherFile another file.
+     * @return the same diagnostic, reported on another file.
+     */
+    public Diagnostic relocate(Path otherFile) {
+        return new Diagnostic(otherFile, line, column, level, code, message);
+    }
+
+    /**
+     * @return the diagnostic in the gcc-like format "file:line:column: level: message [SCcode]".
+     */
+    @Override
+    public String toString() {
+        return file + ":" + line + ":" + column + ": " + level + ": " + message + " [SC" + code + "]";
+    }
+}
@@ -0,0 +1,108 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Small helpers to compute the content digests used to fingerprint files and configurations.
+ */
+public final class Digests {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Digests() {
+    }
+
+    /**
+     * @return a new sha-256 message digest.
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every jvm is required to support sha-256
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Feeds the content of a file to the given digest.
+     *
+     * @param digest the digest to update.
+     * @param file   the file whose content will be digested.
+     * @return the same digest, for chaining.
+     * @throws IOException if the file cannot be read.
+     */
+    public static MessageDigest update(MessageDigest digest, Path file) throws IOException {
+        final byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest;
+    }
+
+    /**
+     * Feeds a string to the given digest, followed by a separator so that consecutive strings do not run together.
+     *
+     * @param digest the digest to update.
+     * @param value  the string to digest.
+     * @return the same digest, for chaining.
+     */
+    public static MessageDigest update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return digest;
+    }
+
+    /**
+     * @param file the file to digest.
+     * @return the hex encoded sha-256 digest of the file content.
+     * @throws IOException if the file cannot be read.
+     */
+    public static String ofFile(Path file) throws IOException {
+        return hex(update(sha256(), file).digest());
+    }
+
+    /**
+     * @param bytes the bytes to encode.
+     * @return the lowercase hex encoding of the bytes.
+     */
+    public static String hex(byte[] bytes) {
+        final char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            out[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(out);
+    }
+}
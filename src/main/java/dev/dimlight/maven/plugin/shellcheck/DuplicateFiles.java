@@ -0,0 +1,119 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Groups the files that shellcheck would certainly report the same way, so that only one of each group (the
+ * representative) needs to be checked.
+ * <p>
+ * Files are duplicates when they have the same fingerprint (same content, same sourced files, same tool
+ * configuration), the same extension (shellcheck guesses the shell from it when there is no shebang) and the same
+ * nearest .shellcheckrc (shellcheck looks for it from the directory of each file upwards).
+ */
+public final class DuplicateFiles {
+
+    private final Map<Path, List<Path>> duplicatesByRepresentative;
+
+    private DuplicateFiles(Map<Path, List<Path>> duplicatesByRepresentative) {
+        this.duplicatesByRepresentative = duplicatesByRepresentative;
+    }
+
+    /**
+     * @param files       the files to group.
+     * @param fingerprint the fingerprint of each file.
+     * @return the files grouped, the first file of each group (in the given order) being its representative.
+     */
+    public static DuplicateFiles group(List<Path> files, Function<Path, String> fingerprint) {
+        return group(files, fingerprint, new Shellcheckrcs());
+    }
+
+    /**
+     * @param files         the files to group.
+     * @param fingerprint   the fingerprint of each file.
+     * @param shellcheckrcs where the .shellcheckrc of each file is found.
+     * @return the files grouped, the first file of each group (in the given order) being its representative.
+     */
+    public static DuplicateFiles group(List<Path> files, Function<Path, String> fingerprint, Shellcheckrcs shellcheckrcs) {
+        final Map<String, Path> representativesByKey = new HashMap<>();
+        final Map<Path, List<Path>> duplicatesByRepresentative = new LinkedHashMap<>();
+        for (Path file : files) {
+            final String key = fingerprint.apply(file) + " " + extensionOf(file) + " "
+                + shellcheckrcs.nearest(file).map(Path::toString).orElse("");
+            final Path representative = representativesByKey.putIfAbsent(key, file);
+            if (representative == null) {
+                duplicatesByRepresentative.put(file, new ArrayList<>());
+            } else {
+                duplicatesByRepresentative.get(representative).add(file);
+            }
+        }
+        return new DuplicateFiles(duplicatesByRepresentative);
+    }
+
+    /**
+     * @param files the files.
+     * @return the files each in its own group, i.e. no deduplication.
+     */
+    public static DuplicateFiles none(List<Path> files) {
+        final Map<Path, List<Path>> duplicatesByRepresentative = new LinkedHashMap<>();
+        files.forEach(file -> duplicatesByRepresentative.put(file, new ArrayList<>()));
+        return new DuplicateFiles(duplicatesByRepresentative);
+    }
+
+    /**
+     * @return the files to check, one per group, in the original order.
+     */
+    public List<Path> representatives() {
+        return new ArrayList<>(duplicatesByRepresentative.keySet());
+    }
+
+    /**
+     * @param representative the representative of a group.
+     * @return the other files of the group.
+     */
+    public List<Path> duplicatesOf(Path representative) {
+        return duplicatesByRepresentative.getOrDefault(representative, Collections.emptyList());
+    }
+
+    /**
+     * @return how many files do not need to be checked, being duplicates of others.
+     */
+    public int duplicatesCount() {
+        return duplicatesByRepresentative.values().stream().mapToInt(List::size).sum();
+    }
+
+    private static String extensionOf(Path file) {
+        final Path fileName = file.getFileName();
+        final String name = fileName == null ? "" : fileName.toString();
+        final int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot);
+    }
+}
@@ -0,0 +1,221 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Where the time of an execution goes (phases and single shellcheck runs) and how much work it did (counts), saved
+ * as json so that shellcheck costs can be tracked across builds.
+ * <p>
+ * The saved file looks like:
+ * <pre>
+ * {"executionId": "default", "totalMillis": 1234, "peakHeapBytes": 104857600,
+ *  "phases": {"discovery": 12, "binaryResolution": 3, ...},
+ *  "counts": {"filesDiscovered": 100, "cacheHits": 80, ...},
+ *  "runs": [{"run": "0", "files": 20, "waitMillis": 0, "spawnMillis": 2, "analysisMillis": 350, "exitCode": 1,
+ *            "stdoutBytes": 4096, "stderrBytes": 0, "diagnostics": 12,
+ *            "userCpuMillis": 330, "systemCpuMillis": 20, "peakRssBytes": 52428800}, ...]}
+ * </pre>
+ * Runs are recorded from the threads running them, everything else from the mojo thread, and are listed by run
+ * number (e.g. "1", "1.0", "1.1", "2"). The process usage of a run (see {@link ProcessUsage}) is -1 where unknown.
+ * The peak heap is the one of the whole maven jvm so far, i.e. of the build up to the end of this execution.
+ */
+public final class ExecutionMetrics {
+
+    private final String executionId;
+    private final long startNanos;
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final Map<String, String> runs = new TreeMap<>(ExecutionMetrics::compareRunNumbers);
+    private long userCpuMillis;
+    private long systemCpuMillis;
+    private long peakRssBytes = -1;
+
+    /**
+     * Starts measuring an execution.
+     *
+     * @param executionId the id of the execution.
+     */
+    public ExecutionMetrics(String executionId) {
+        this.executionId = executionId;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records a phase that ends now.
+     *
+     * @param name       the name of the phase.
+     * @param startNanos when the phase started, as returned by {@link System#nanoTime()}.
+     * @return now, i.e. the start of the next phase.
+     */
+    public synchronized long phase(String name, long startNanos) {
+        final long now = System.nanoTime();
+        phaseMillis.merge(name, TimeUnit.NANOSECONDS.toMillis(now - startNanos), Long::sum);
+        return now;
+    }
+
+    /**
+     * @param name  the name of the count.
+     * @param value its value.
+     */
+    public synchronized void count(String name, long value) {
+        counts.put(name, value);
+    }
+
+    /**
+     * Records a shellcheck run.
+     *
+     * @param runNumber  the number of the run, e.g. "3" or "3.1".
+     * @param files      how many files it checked.
+     * @param waitMillis how long it waited for a thread and a process slot before starting.
+     * @param result     its result.
+     * @throws IOException if the size of the captured output cannot be read.
+     */
+    public void run(String runNumber, int files, long waitMillis, Shellcheck.Result result) throws IOException {
+        final String run = "{\"run\": \"" + escaped(runNumber) + "\""
+            + ", \"files\": " + files
+            + ", \"waitMillis\": " + waitMillis
+            + ", \"spawnMillis\": " + result.spawnMillis
+            + ", \"analysisMillis\": " + (result.elapsedMillis - result.spawnMillis)
+            + ", \"exitCode\": " + result.exitCode
+            + ", \"stdoutBytes\": " + sizeOf(result.stdout)
+            + ", \"stderrBytes\": " + sizeOf(result.stderr)
+            + ", \"diagnostics\": " + result.diagnosticCount()
+            + ", \"userCpuMillis\": " + result.usage.userCpuMillis
+            + ", \"systemCpuMillis\": " + result.usage.systemCpuMillis
+            + ", \"peakRssBytes\": " + result.usage.peakRssBytes + "}";
+        synchronized (this) {
+            runs.put(runNumber, run);
+            if (result.usage.isKnown()) {
+                userCpuMillis += result.usage.userCpuMillis;
+                systemCpuMillis += result.usage.systemCpuMillis;
+                peakRssBytes = Math.max(peakRssBytes, result.usage.peakRssBytes);
+            }
+        }
+    }
+
+    /**
+     * Orders run numbers made of dot separated numbers (e.g. "3.1") number by number.
+     */
+    static int compareRunNumbers(String runNumber, String otherRunNumber) {
+        final String[] numbers = runNumber.split("\\.");
+        final String[] otherNumbers = otherRunNumber.split("\\.");
+        for (int i = 0; i < Math.min(numbers.length, otherNumbers.length); i++) {
+            final int comparison = Long.compare(Long.parseLong(numbers[i]), Long.parseLong(otherNumbers[i]));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(numbers.length, otherNumbers.length);
+    }
+
+    private static long sizeOf(Path file) throws IOException {
+        return Files.isRegularFile(file) ? Files.size(file) : 0;
+    }
+
+    /**
+     * @return a one line summary of the phases, runs and counts, for the log.
+     */
+    public synchronized String summary() {
+        return "[" + totalMillis() + "] millis, peak heap [" + peakHeapBytes() / (1024 * 1024) + "] MiB: "
+            + phaseMillis.entrySet().stream().map(phase -> phase.getKey() + " [" + phase.getValue() + "]").collect(Collectors.joining(", "))
+            + "; " + runs.size() + " runs"
+            + (peakRssBytes < 0 ? "" : " (cpu user [" + userCpuMillis + "] sys [" + systemCpuMillis + "] millis, max peak rss ["
+            + peakRssBytes / (1024 * 1024) + "] MiB)")
+            + ", "
+            + counts.entrySet().stream().map(count -> count.getKey() + " [" + count.getValue() + "]").collect(Collectors.joining(", "));
+    }
+
+    private long totalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return the sum of the peak usages of the heap memory pools, an upper bound of the peak heap usage of this jvm.
+     */
+    static long peakHeapBytes() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null)
+            .mapToLong(pool -> pool.getPeakUsage().getUsed())
+            .sum();
+    }
+
+    /**
+     * Saves the metrics as they are now.
+     *
+     * @param metricsFile where to save them.
+     * @throws IOException if they cannot be saved.
+     */
+    public synchronized void save(Path metricsFile) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add("{\"executionId\": \"" + escaped(executionId) + "\", \"totalMillis\": " + totalMillis()
+            + ", \"peakHeapBytes\": " + peakHeapBytes() + ",");
+        lines.add(" \"phases\": " + jsonObject(phaseMillis) + ",");
+        lines.add(" \"counts\": " + jsonObject(counts) + ",");
+        lines.add(" \"runs\": [" + String.join(",\n  ", runs.values()) + "]}");
+
+        final Path directory = metricsFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        final Path tmp = Paths.get(metricsFile.toAbsolutePath() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, metricsFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String jsonObject(Map<String, Long> values) {
+        return values.entrySet().stream()
+            .map(value -> "\"" + escaped(value.getKey()) + "\": " + value.getValue())
+            .collect(Collectors.joining(", ", "{", "}"));
+    }
+
+    private static String escaped(String value) {
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
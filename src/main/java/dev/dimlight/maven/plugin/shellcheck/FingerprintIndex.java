@@ -0,0 +1,196 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persisted index of the fingerprints of the files that were last checked by shellcheck without problems.
+ * <p>
+ * A file fingerprint covers the file content, the shellcheck binary and the args it was checked with, so a file
+ * whose fingerprint matches the one in the index does not need to be checked again.
+ * <p>
+ * The index is stored as a text file with a line per file, in the form "fingerprint absolute-path".
+ */
+public class FingerprintIndex {
+
+    // the digests of the shellcheck binaries (tens of megabytes) by path, size and modification time, so that they
+    // are hashed once and not by every execution of every module
+    private static final Map<String, String> BINARY_DIGESTS = new ConcurrentHashMap<>();
+
+    private final Path indexFile;
+    private final Map<String, String> fingerprintsByPath;
+
+    private FingerprintIndex(Path indexFile, Map<String, String> fingerprintsByPath) {
+        this.indexFile = indexFile;
+        this.fingerprintsByPath = fingerprintsByPath;
+    }
+
+    /**
+     * Loads the index from the given file, an empty index is returned if the file does not exist.
+     *
+     * @param indexFile the file where the index is persisted.
+     * @return the loaded index.
+     * @throws IOException if the index file exists but cannot be read.
+     */
+    public static FingerprintIndex load(Path indexFile) throws IOException {
+        final Map<String, String> fingerprintsByPath = new TreeMap<>();
+        if (Files.isRegularFile(indexFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final int separator = line.indexOf(' ');
+                    if (separator > 0) {
+                        fingerprintsByPath.put(line.substring(separator + 1), line.substring(0, separator));
+                    }
+                }
+            }
+        }
+        return new FingerprintIndex(indexFile, fingerprintsByPath);
+    }
+
+    /**
+     * Computes the fingerprint of the tool configuration, i.e. the shellcheck binary and the options it is run with,
+     * both the args and those it takes from the environment (SHELLCHECK_OPTS).
+     * The binary is hashed only the first time it is seen with its current size and modification time.
+     *
+     * @param shellcheckBinary   the shellcheck binary.
+     * @param args               the args passed to shellcheck.
+     * @param environmentOptions the options shellcheck finds in the environment, empty if none.
+     * @return the tool fingerprint, to be used as a seed for file fingerprints.
+     * @throws IOException if the binary cannot be read.
+     */
+    public static String toolFingerprint(Path shellcheckBinary, List<String> args, String environmentOptions) throws IOException {
+        final MessageDigest digest = Digests.update(Digests.sha256(), binaryDigest(shellcheckBinary));
+        for (String arg : args) {
+            Digests.update(digest, arg);
+        }
+        Digests.update(digest, "SHELLCHECK_OPTS=" + environmentOptions);
+        return Digests.hex(digest.digest());
+    }
+
+    private static String binaryDigest(Path binary) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(binary, BasicFileAttributes.class);
+        final String key = binary.toAbsolutePath() + " " + attributes.size() + " " + attributes.lastModifiedTime().toMillis();
+        final String knownDigest = BINARY_DIGESTS.get(key);
+        if (knownDigest != null) {
+            return knownDigest;
+        }
+        final String digest = Digests.hex(Digests.update(Digests.sha256(), binary).digest());
+        BINARY_DIGESTS.put(key, digest);
+        return digest;
+    }
+
+    /**
+     * Computes the fingerprint of a file.
+     *
+     * @param toolFingerprint the fingerprint of the tool configuration.
+     * @param file            the file.
+     * @return the file fingerprint.
+     * @throws IOException if the file cannot be read.
+     */
+    public static String fileFingerprint(String toolFingerprint, Path file) throws IOException {
+        return Digests.hex(Digests.update(Digests.update(Digests.sha256(), toolFingerprint), file).digest());
+    }
+
+    /**
+     * @param file        a file.
+     * @param fingerprint the current fingerprint of the file.
+     * @return true if the file was checked without problems with the same fingerprint.
+     */
+    public boolean isUpToDate(Path file, String fingerprint) {
+        return fingerprint.equals(fingerprintsByPath.get(key(file)));
+    }
+
+    /**
+     * Records the fingerprint of a file that has been checked without problems.
+     *
+     * @param file        the file.
+     * @param fingerprint its fingerprint.
+     */
+    public void put(Path file, String fingerprint) {
+        fingerprintsByPath.put(key(file), fingerprint);
+    }
+
+    /**
+     * Forgets a file, so that it will be checked again on the next execution.
+     *
+     * @param file the file.
+     */
+    public void remove(Path file) {
+        fingerprintsByPath.remove(key(file));
+    }
+
+    /**
+     * Forgets all the files that are not in the given collection (e.g. files that have been deleted).
+     *
+     * @param files the files to retain.
+     */
+    public void retainAll(Collection<Path> files) {
+        final Set<String> keys = new HashSet<>();
+        files.forEach(file -> keys.add(key(file)));
+        fingerprintsByPath.keySet().retainAll(keys);
+    }
+
+    /**
+     * Persists the index, replacing the previous one.
+     *
+     * @throws IOException if the index cannot be written.
+     */
+    public void save() throws IOException {
+        final Path directory = indexFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        final Path tmp = Paths.get(indexFile.toAbsolutePath() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : fingerprintsByPath.entrySet()) {
+                writer.write(entry.getValue());
+                writer.write(' ');
+                writer.write(entry.getKey());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String key(Path file) {
+        return file.toFile().getAbsolutePath();
+    }
+}
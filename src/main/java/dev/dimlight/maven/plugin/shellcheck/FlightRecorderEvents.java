@@ -0,0 +1,127 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import java.nio.file.Path;
+
+/**
+ * Records what the plugin does as JDK Flight Recorder events, so that a recording of a build shows how shellcheck
+ * contributes to it: binary resolutions, source discoveries and shellcheck invocations.
+ * <p>
+ * The events are only created when JFR is available (java 11+, some late java 8 builds) and enabled for them, so
+ * that without a recording they cost an allocation at most. No JFR type appears here, so this class can be loaded
+ * on any java version.
+ */
+public final class FlightRecorderEvents {
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private static final BinaryResolution NO_BINARY_RESOLUTION = (cacheHit, binary) -> {
+    };
+    private static final SourceDiscovery NO_SOURCE_DISCOVERY = files -> {
+    };
+    private static final Invocation NO_INVOCATION = (exitCode, stdout, stderr) -> {
+    };
+
+    private FlightRecorderEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * A started binary resolution.
+     */
+    @FunctionalInterface
+    public interface BinaryResolution {
+        /**
+         * Ends the resolution.
+         *
+         * @param cacheHit true if the binary had already been resolved in the session.
+         * @param binary   the resolved binary.
+         */
+        void end(boolean cacheHit, Path binary);
+    }
+
+    /**
+     * A started source discovery.
+     */
+    @FunctionalInterface
+    public interface SourceDiscovery {
+        /**
+         * Ends the discovery.
+         *
+         * @param files how many files were found.
+         */
+        void end(int files);
+    }
+
+    /**
+     * A started shellcheck invocation.
+     */
+    @FunctionalInterface
+    public interface Invocation {
+        /**
+         * Ends the invocation.
+         *
+         * @param exitCode the exit code of shellcheck.
+         * @param stdout   its captured stdout (only its size is recorded, only if the event is).
+         * @param stderr   its captured stderr (only its size is recorded, only if the event is).
+         */
+        void end(int exitCode, Path stdout, Path stderr);
+    }
+
+    /**
+     * @param executionId the execution resolving the binary.
+     * @param method      the resolution method.
+     * @return the started resolution, to be ended when the binary is resolved (resolutions that fail are not
+     * recorded).
+     */
+    public static BinaryResolution binaryResolution(String executionId, BinaryResolutionMethod method) {
+        return AVAILABLE ? BinaryResolutionEvent.start(executionId, method.name()) : NO_BINARY_RESOLUTION;
+    }
+
+    /**
+     * @param executionId the execution searching for the files to check.
+     * @return the started discovery, to be ended when the files are found.
+     */
+    public static SourceDiscovery sourceDiscovery(String executionId) {
+        return AVAILABLE ? SourceDiscoveryEvent.start(executionId) : NO_SOURCE_DISCOVERY;
+    }
+
+    /**
+     * @param runId the id of the run.
+     * @param files how many files it checks.
+     * @return the started invocation, to be ended when shellcheck exits.
+     */
+    public static Invocation invocation(String runId, int files) {
+        return AVAILABLE ? InvocationEvent.start(runId, files) : NO_INVOCATION;
+    }
+}
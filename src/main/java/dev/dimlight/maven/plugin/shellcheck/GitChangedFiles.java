@@ -0,0 +1,140 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the files changed with respect to a git ref, asking the git command line client.
+ * <p>
+ * Changed files are the ones that differ (committed, staged or not) from the merge base of the ref and HEAD, which is
+ * what a pull request would show, plus the untracked (and not ignored) ones. Only the local repository is read.
+ */
+public final class GitChangedFiles {
+
+    private GitChangedFiles() {
+    }
+
+    /**
+     * @param workDir a directory in the git working tree.
+     * @param baseRef the ref (e.g. "origin/main") the changes are relative to.
+     * @return the absolute, real paths of the changed files that still exist.
+     * @throws IOException if git fails (e.g. it is not installed, workDir is not in a working tree or the ref does not
+     *                     exist).
+     * @throws InterruptedException if interrupted while waiting for git.
+     */
+    public static Set<Path> since(Path workDir, String baseRef) throws IOException, InterruptedException {
+        final Path topLevel = Paths.get(git(workDir, "rev-parse", "--show-toplevel").trim());
+        final String mergeBase = git(workDir, "merge-base", baseRef, "HEAD").trim();
+
+        final List<String> changed = new ArrayList<>();
+        changed.addAll(splitNul(git(topLevel, "diff", "--name-only", "--no-renames", "-z", mergeBase, "--")));
+        changed.addAll(splitNul(git(topLevel, "ls-files", "--others", "--exclude-standard", "-z")));
+
+        final Set<Path> changedFiles = new HashSet<>();
+        for (String file : changed) {
+            final Path path = topLevel.resolve(file);
+            // deleted files are changed too, but there is nothing to check
+            if (Files.exists(path)) {
+                changedFiles.add(path.toRealPath());
+            }
+        }
+        return changedFiles;
+    }
+
+    /**
+     * @param files        some files.
+     * @param changedFiles the changed files, as returned by {@link #since(Path, String)}.
+     * @return the files that are among the changed ones, in the same order.
+     * @throws IOException if the real path of some file cannot be found.
+     */
+    public static List<Path> retainChanged(Collection<Path> files, Set<Path> changedFiles) throws IOException {
+        final List<Path> retained = new ArrayList<>();
+        for (Path file : files) {
+            if (changedFiles.contains(file.toRealPath())) {
+                retained.add(file);
+            }
+        }
+        return retained;
+    }
+
+    private static List<String> splitNul(String output) {
+        return Arrays.stream(output.split("\0"))
+            .filter(file -> !file.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    // a false positive, javac in java 11+ due to redundant null checks in try-with-resources synthesized finally
+    @SuppressFBWarnings("RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE")
+    private static String git(Path workDir, String... args) throws IOException, InterruptedException {
+        final List<String> cmdLine = new ArrayList<>();
+        cmdLine.add("git");
+        cmdLine.addAll(Arrays.asList(args));
+        // stderr (e.g. warnings about line endings) must not end up among the parsed output, it only explains failures
+        final Path stderr = Files.createTempFile("shellcheck-git", ".stderr");
+        try {
+            final Process process = new ProcessBuilder(cmdLine)
+                .directory(workDir.toFile())
+                .redirectError(stderr.toFile())
+                .start();
+            process.getOutputStream().close();
+            final String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(readAll(in), StandardCharsets.UTF_8);
+            }
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                final String errors = new String(Files.readAllBytes(stderr), StandardCharsets.UTF_8);
+                throw new IOException("Command " + cmdLine + " in [" + workDir + "] failed with exit code [" + exitCode + "]: " + errors.trim());
+            }
+            return output;
+        } finally {
+            Files.deleteIfExists(stderr);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,95 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * JFR event for a shellcheck process, from its start to its exit, only to be used through
+ * {@link FlightRecorderEvents}.
+ */
+@Name("dev.dimlight.shellcheck.Invocation")
+@Label("Shellcheck Invocation")
+@Description("A shellcheck process run by the shellcheck-maven-plugin")
+@Category({"Maven", "Shellcheck"})
+@StackTrace(false)
+@SuppressFBWarnings(value = {"URF_UNREAD_FIELD"}, justification = "Event fields are read by the flight recorder.")
+final class InvocationEvent extends Event {
+
+    @Label("Run Id")
+    String runId;
+
+    @Label("Files")
+    int files;
+
+    @Label("Exit Code")
+    int exitCode;
+
+    @Label("Stdout Bytes")
+    @DataAmount
+    long stdoutBytes;
+
+    @Label("Stderr Bytes")
+    @DataAmount
+    long stderrBytes;
+
+    static FlightRecorderEvents.Invocation start(String runId, int files) {
+        final InvocationEvent event = new InvocationEvent();
+        if (!event.isEnabled()) {
+            return (exitCode, stdout, stderr) -> {
+            };
+        }
+        event.runId = runId;
+        event.files = files;
+        event.begin();
+        return (exitCode, stdout, stderr) -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.exitCode = exitCode;
+                event.stdoutBytes = sizeOf(stdout);
+                event.stderrBytes = sizeOf(stderr);
+                event.commit();
+            }
+        };
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
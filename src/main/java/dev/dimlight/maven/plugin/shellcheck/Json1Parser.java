@@ -0,0 +1,277 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+/**
+ * A streaming parser for the shellcheck "json1" output format.
+ * <p>
+ * The format is a single object like {"comments": [{"file": "a.sh", "line": 1, "column": 2, "level": "warning",
+ * "code": 2086, "message": "...", ...}, ...]}. Diagnostics are handed over one at a time as soon as they are read, so
+ * the memory needed does not depend on the size of the output.
+ * Only the small subset of json that shellcheck produces is fully understood, everything else is skipped.
+ */
+public final class Json1Parser {
+
+    private final Reader reader;
+    private int lookahead = -2;
+
+    // diagnostics usually come in runs on the same file, so the same path instance is reused
+    private String lastFile;
+    private Path lastPath;
+
+    private Json1Parser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Parses json1 output, the reader is consumed but not closed.
+     *
+     * @param reader   the (preferably buffered) reader over the shellcheck output.
+     * @param consumer the consumer that will receive each diagnostic.
+     * @throws IOException if the output cannot be read or is not valid json1.
+     */
+    public static void parse(Reader reader, Consumer<Diagnostic> consumer) throws IOException {
+        final Json1Parser parser = new Json1Parser(reader);
+        if (parser.peek() == -1) {
+            // shellcheck wrote nothing at all (e.g. no files were given)
+            return;
+        }
+        parser.expect('{');
+        if (!parser.consumeIf('}')) {
+            do {
+                final String key = parser.readString();
+                parser.expect(':');
+                if ("comments".equals(key)) {
+                    parser.readComments(consumer);
+                } else {
+                    parser.skipValue();
+                }
+            } while (parser.consumeIf(','));
+            parser.expect('}');
+        }
+    }
+
+    private void readComments(Consumer<Diagnostic> consumer) throws IOException {
+        expect('[');
+        if (consumeIf(']')) {
+            return;
+        }
+        do {
+            consumer.accept(readComment());
+        } while (consumeIf(','));
+        expect(']');
+    }
+
+    private Diagnostic readComment() throws IOException {
+        String file = "";
+        int line = 0;
+        int column = 0;
+        Severity level = Severity.error;
+        int code = 0;
+        String message = "";
+
+        expect('{');
+        if (!consumeIf('}')) {
+            do {
+                final String key = readString();
+                expect(':');
+                switch (key) {
+                    case "file":
+                        file = readString();
+                        break;
+                    case "line":
+                        line = (int) readNumber();
+                        break;
+                    case "column":
+                        column = (int) readNumber();
+                        break;
+                    case "level":
+                        level = Severity.parse(readString());
+                        break;
+                    case "code":
+                        code = (int) readNumber();
+                        break;
+                    case "message":
+                        message = readString();
+                        break;
+                    default:
+                        skipValue();
+                }
+            } while (consumeIf(','));
+            expect('}');
+        }
+        if (!file.equals(lastFile)) {
+            lastFile = file;
+            lastPath = Paths.get(file);
+        }
+        return new Diagnostic(lastPath, line, column, level, code, message);
+    }
+
+    private void skipValue() throws IOException {
+        final int c = peek();
+        switch (c) {
+            case '"':
+                readString();
+                break;
+            case '{':
+                expect('{');
+                if (!consumeIf('}')) {
+                    do {
+                        readString();
+                        expect(':');
+                        skipValue();
+                    } while (consumeIf(','));
+                    expect('}');
+                }
+                break;
+            case '[':
+                expect('[');
+                if (!consumeIf(']')) {
+                    do {
+                        skipValue();
+                    } while (consumeIf(','));
+                    expect(']');
+                }
+                break;
+            default:
+                // numbers and literals (true, false, null)
+                while (isLiteralChar(peekRaw())) {
+                    read();
+                }
+        }
+    }
+
+    private long readNumber() throws IOException {
+        peek();
+        final StringBuilder sb = new StringBuilder();
+        while (isLiteralChar(peekRaw())) {
+            sb.append((char) read());
+        }
+        try {
+            return (long) Double.parseDouble(sb.toString());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid json1 number [" + sb + "]", e);
+        }
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        final StringBuilder sb = new StringBuilder();
+        while (true) {
+            final int c = read();
+            if (c == -1) {
+                throw new IOException("Unterminated string in json1 output");
+            }
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append((char) c);
+                continue;
+            }
+            final int escaped = read();
+            switch (escaped) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    final char[] hex = new char[4];
+                    for (int i = 0; i < hex.length; i++) {
+                        hex[i] = (char) read();
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(new String(hex), 16));
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Invalid unicode escape in json1 output", e);
+                    }
+                    break;
+                case -1:
+                    throw new IOException("Unterminated string in json1 output");
+                default:
+                    // \" \\ \/
+                    sb.append((char) escaped);
+            }
+        }
+    }
+
+    private static boolean isLiteralChar(int c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || c == '-' || c == '+' || c == '.' || c == 'E';
+    }
+
+    private void expect(char expected) throws IOException {
+        final int c = peek();
+        if (c != expected) {
+            throw new IOException("Invalid json1 output: expected [" + expected + "] but got [" + (c == -1 ? "EOF" : String.valueOf((char) c)) + "]");
+        }
+        read();
+    }
+
+    private boolean consumeIf(char expected) throws IOException {
+        if (peek() == expected) {
+            read();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the next non-whitespace char, without consuming it.
+     */
+    private int peek() throws IOException {
+        while (Character.isWhitespace(peekRaw())) {
+            read();
+        }
+        return peekRaw();
+    }
+
+    private int peekRaw() throws IOException {
+        if (lookahead == -2) {
+            lookahead = reader.read();
+        }
+        return lookahead;
+    }
+
+    private int read() throws IOException {
+        final int c = peekRaw();
+        lookahead = -2;
+        return c;
+    }
+}
@@ -0,0 +1,259 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The resources (cpu time and memory) used by a shellcheck process, as sampled from /proc/&lt;pid&gt; while it runs.
+ * <p>
+ * The jvm reaps a process as soon as it exits, taking its /proc entry along, so the values are those of the last
+ * sample: they are lower bounds, short of whatever the process used in its last {@link #SAMPLING_INTERVAL_MILLIS}.
+ * Once reaped, its pid may be reused by another process: samples are only taken until the process exits, and only
+ * from the /proc entry with the start time the process had when first sampled.
+ * Values are -1 when unknown, i.e. not on linux, on java 8 (no way to get the pid), for processes that exited before
+ * being sampled or when not sampled at all.
+ */
+public final class ProcessUsage {
+
+    /**
+     * How often a running process is sampled.
+     */
+    public static final long SAMPLING_INTERVAL_MILLIS = 20;
+
+    /**
+     * The usage of a process that could not be sampled.
+     */
+    public static final ProcessUsage UNKNOWN = new ProcessUsage(-1, -1, -1);
+
+    // USER_HZ, the unit of the cpu times in /proc/<pid>/stat, is 100 on every linux platform the jdk runs on
+    private static final long MILLIS_PER_CLOCK_TICK = 10;
+
+    private static final Optional<Method> PID = pidMethod();
+
+    private static final ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "shellcheck-process-usage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Cpu time spent in user mode, in milliseconds.
+     */
+    public final long userCpuMillis;
+
+    /**
+     * Cpu time spent in kernel mode, in milliseconds.
+     */
+    public final long systemCpuMillis;
+
+    /**
+     * Peak resident set size ("high water mark"), in bytes.
+     */
+    public final long peakRssBytes;
+
+    /**
+     * @param userCpuMillis   cpu time spent in user mode, in milliseconds.
+     * @param systemCpuMillis cpu time spent in kernel mode, in milliseconds.
+     * @param peakRssBytes    peak resident set size, in bytes.
+     */
+    public ProcessUsage(long userCpuMillis, long systemCpuMillis, long peakRssBytes) {
+        this.userCpuMillis = userCpuMillis;
+        this.systemCpuMillis = systemCpuMillis;
+        this.peakRssBytes = peakRssBytes;
+    }
+
+    /**
+     * @return true if the process was sampled at least once.
+     */
+    public boolean isKnown() {
+        return userCpuMillis >= 0;
+    }
+
+    /**
+     * Starts sampling a process.
+     *
+     * @param process a process that was just started.
+     * @return the sampling, to be stopped once the process is done.
+     */
+    public static Sampling sample(Process process) {
+        final Optional<Path> procDir = pidOf(process).map(pid -> Paths.get("/proc", Long.toString(pid)))
+            .filter(Files::isDirectory);
+        return new Sampling(process, procDir.orElse(null));
+    }
+
+    /**
+     * @return a sampling that samples nothing, its usage is {@link #UNKNOWN}.
+     */
+    public static Sampling none() {
+        return new Sampling(null, null);
+    }
+
+    /**
+     * The sampling of a running process.
+     */
+    public static final class Sampling {
+
+        private final Process process;
+        private final Path procDir;
+        private final ScheduledFuture<?> task;
+        // only touched by the sampler thread
+        private long startTime = -1;
+        private volatile ProcessUsage lastSample = UNKNOWN;
+        private volatile boolean gone;
+
+        private Sampling(Process process, Path procDir) {
+            this.process = process;
+            this.procDir = procDir;
+            this.task = procDir == null
+                ? null
+                : SAMPLER.scheduleWithFixedDelay(this::takeSample, 0, SAMPLING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        private void takeSample() {
+            if (gone) {
+                return;
+            }
+            try {
+                final String stat = new String(Files.readAllBytes(procDir.resolve("stat")), StandardCharsets.US_ASCII);
+                final List<String> status = Files.readAllLines(procDir.resolve("status"), StandardCharsets.US_ASCII);
+                final long sampledStartTime = startTime(stat);
+                if (startTime < 0) {
+                    // the pid cannot be reused before the process is reaped: if it is still alive, what was read is its own
+                    if (!process.isAlive() || sampledStartTime < 0) {
+                        done();
+                        return;
+                    }
+                    startTime = sampledStartTime;
+                } else if (sampledStartTime != startTime) {
+                    // the pid now belongs to another process
+                    done();
+                    return;
+                }
+                final ProcessUsage sample = parse(stat, status);
+                if (sample.isKnown()) {
+                    // an exited (not yet reaped) process still has its cpu times, but no memory to speak of
+                    lastSample = new ProcessUsage(sample.userCpuMillis, sample.systemCpuMillis,
+                        Math.max(sample.peakRssBytes, lastSample.peakRssBytes));
+                }
+            } catch (IOException | RuntimeException e) {
+                // the process is gone: the last sample is what we have, and the pid is not ours to look at anymore
+                done();
+            }
+            // nothing more to sample once the process has exited
+            if (!process.isAlive()) {
+                done();
+            }
+        }
+
+        /**
+         * Stops sampling.
+         *
+         * @return the usage as of the last sample.
+         */
+        public ProcessUsage stop() {
+            done();
+            return lastSample;
+        }
+
+        /**
+         * @return true until the process exits (or the sampling is stopped).
+         */
+        boolean isSampling() {
+            return !gone;
+        }
+
+        private void done() {
+            gone = true;
+            // the task may not be there yet when its first run finds the process already gone, stop() cancels it then
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * @param stat the single line of /proc/&lt;pid&gt;/stat.
+     * @return when the process started, in clock ticks since boot, -1 if it could not be found.
+     */
+    static long startTime(String stat) {
+        final String[] fields = stat.substring(stat.lastIndexOf(')') + 1).trim().split("\\s+");
+        // starttime is the 22nd field, fields[0] being the 3rd (the state)
+        return fields.length > 19 ? Long.parseLong(fields[19]) : -1;
+    }
+
+    /**
+     * Parses the content of /proc/&lt;pid&gt;/stat and /proc/&lt;pid&gt;/status.
+     *
+     * @param stat   the single line of /proc/&lt;pid&gt;/stat.
+     * @param status the lines of /proc/&lt;pid&gt;/status.
+     * @return the usage, with -1 for what could not be found.
+     */
+    static ProcessUsage parse(String stat, List<String> status) {
+        // the command name (2nd field) is in parentheses and can contain anything, including spaces and parentheses
+        final String[] fields = stat.substring(stat.lastIndexOf(')') + 1).trim().split("\\s+");
+        // utime and stime are the 14th and 15th fields, fields[0] being the 3rd (the state)
+        final long userCpuMillis = fields.length > 12 ? Long.parseLong(fields[11]) * MILLIS_PER_CLOCK_TICK : -1;
+        final long systemCpuMillis = fields.length > 12 ? Long.parseLong(fields[12]) * MILLIS_PER_CLOCK_TICK : -1;
+        // zombies have no VmHWM line
+        final long peakRssBytes = status.stream()
+            .filter(line -> line.startsWith("VmHWM:"))
+            .map(line -> line.substring("VmHWM:".length()).trim().split("\\s+"))
+            .mapToLong(valueAndUnit -> Long.parseLong(valueAndUnit[0]) * 1024) // always in kB
+            .findFirst()
+            .orElse(-1);
+        return new ProcessUsage(userCpuMillis, systemCpuMillis, peakRssBytes);
+    }
+
+    private static Optional<Long> pidOf(Process process) {
+        if (!PID.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of((Long) PID.get().invoke(process));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Method> pidMethod() {
+        try {
+            // Process::pid is java 9+
+            return Optional.of(Process.class.getMethod("pid"));
+        } catch (NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A content-addressed cache of the diagnostics reported by shellcheck for single files.
+ * <p>
+ * Entries are keyed by file fingerprint (see {@link FingerprintIndex#fileFingerprint(String, Path)}) so that a hit
+ * means the very same content was checked with the very same binary and args.
+ * The cache is bounded both in number of entries and in (approximate) bytes, the least recently used entries are
+ * evicted first. It is persisted as a single file, with entries stored from the least to the most recently used.
+ */
+public class ResultCache {
+
+    private static final int FORMAT_VERSION = 1;
+
+    // writeUTF takes at most 65535 bytes, i.e. (at 3 bytes per char at worst) 21845 chars
+    private static final int MAX_MESSAGE_CHARS = 16384;
+
+    private final Path cacheFile;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private int hits;
+    private int misses;
+
+    private static final class Entry {
+        private final List<Diagnostic> diagnostics;
+        private final long bytes;
+
+        private Entry(List<Diagnostic> diagnostics) {
+            this.diagnostics = diagnostics;
+            long size = 64;
+            for (Diagnostic diagnostic : diagnostics) {
+                size += 24 + diagnostic.message.getBytes(StandardCharsets.UTF_8).length;
+            }
+            this.bytes = size;
+        }
+    }
+
+    private ResultCache(Path cacheFile, int maxEntries, long maxBytes) {
+        this.cacheFile = cacheFile;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Loads the cache from the given file, an empty cache is returned if the file does not exist, it has been
+     * written by an incompatible version of the plugin or it cannot be read (e.g. it is truncated or corrupted):
+     * losing the cache only costs checking the files again.
+     *
+     * @param cacheFile  the file where the cache is persisted.
+     * @param maxEntries the max number of entries to keep.
+     * @param maxBytes   the max (approximate) size of the cache.
+     * @param log        where to tell why the cache was discarded.
+     * @return the loaded cache.
+     */
+    public static ResultCache load(Path cacheFile, int maxEntries, long maxBytes, Log log) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return new ResultCache(cacheFile, maxEntries, maxBytes);
+        }
+        try {
+            return read(cacheFile, maxEntries, maxBytes);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Discarding the result cache [" + cacheFile + "] as it cannot be read: " + e);
+            return new ResultCache(cacheFile, maxEntries, maxBytes);
+        }
+    }
+
+    private static ResultCache read(Path cacheFile, int maxEntries, long maxBytes) throws IOException {
+        final ResultCache cache = new ResultCache(cacheFile, maxEntries, maxBytes);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return cache;
+            }
+            final int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                final String key = in.readUTF();
+                final int diagnosticCount = in.readInt();
+                final List<Diagnostic> diagnostics = new ArrayList<>();
+                for (int j = 0; j < diagnosticCount; j++) {
+                    final int line = in.readInt();
+                    final int column = in.readInt();
+                    final Severity level = Severity.values()[in.readByte()];
+                    final int code = in.readInt();
+                    final String message = in.readUTF();
+                    diagnostics.add(new Diagnostic(Paths.get(""), line, column, level, code, message));
+                }
+                cache.store(key, diagnostics);
+            }
+        }
+        cache.evict();
+        return cache;
+    }
+
+    /**
+     * Looks up the diagnostics of a file.
+     *
+     * @param key  the fingerprint of the file.
+     * @param file the file, the returned diagnostics will be reported on it.
+     * @return the cached diagnostics (possibly none) or empty if the file is not in the cache.
+     */
+    public Optional<List<Diagnostic>> get(String key, Path file) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            ++misses;
+            return Optional.empty();
+        }
+        ++hits;
+        final List<Diagnostic> diagnostics = new ArrayList<>(entry.diagnostics.size());
+        entry.diagnostics.forEach(diagnostic -> diagnostics.add(diagnostic.relocate(file)));
+        return Optional.of(diagnostics);
+    }
+
+    /**
+     * Stores the diagnostics of a file, possibly evicting the least recently used entries.
+     *
+     * @param key         the fingerprint of the file.
+     * @param diagnostics all the diagnostics shellcheck reported for the file (possibly none).
+     */
+    public void put(String key, List<Diagnostic> diagnostics) {
+        store(key, Collections.unmodifiableList(new ArrayList<>(diagnostics)));
+        evict();
+    }
+
+    /**
+     * @return the number of lookups that found an entry.
+     */
+    public int hits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that did not find an entry.
+     */
+    public int misses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of entries in the cache.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Persists the cache, replacing the previous one.
+     *
+     * @throws IOException if the cache cannot be written.
+     */
+    public void save() throws IOException {
+        final Path directory = cacheFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        final Path tmp = Paths.get(cacheFile.toAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().diagnostics.size());
+                for (Diagnostic diagnostic : entry.getValue().diagnostics) {
+                    out.writeInt(diagnostic.line);
+                    out.writeInt(diagnostic.column);
+                    out.writeByte(diagnostic.level.ordinal());
+                    out.writeInt(diagnostic.code);
+                    out.writeUTF(diagnostic.message.length() > MAX_MESSAGE_CHARS
+                        ? diagnostic.message.substring(0, MAX_MESSAGE_CHARS)
+                        : diagnostic.message);
+                }
+            }
+        }
+        Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void store(String key, List<Diagnostic> diagnostics) {
+        final Entry entry = new Entry(diagnostics);
+        final Entry previous = entries.put(key, entry);
+        bytes += entry.bytes - (previous == null ? 0 : previous.bytes);
+    }
+
+    private void evict() {
+        final Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (leastRecentlyUsed.hasNext() && (entries.size() > maxEntries || bytes > maxBytes)) {
+            bytes -= leastRecentlyUsed.next().bytes;
+            leastRecentlyUsed.remove();
+        }
+    }
+}
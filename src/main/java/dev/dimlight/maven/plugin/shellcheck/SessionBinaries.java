@@ -0,0 +1,123 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Remembers the binaries resolved during a maven session, so that the modules of a reactor (and the executions of a
+ * module) resolve the same binary only once.
+ * <p>
+ * Binaries are remembered per session (sessions are weakly referenced, so they are forgotten when the session is
+ * gone) and per key, where the key must identify what the resolution produces (e.g. resolution method, url and
+ * architecture). Concurrent resolutions of the same key (e.g. in parallel builds) wait for the first one instead of
+ * racing.
+ */
+public final class SessionBinaries {
+
+    private static final Map<Object, ConcurrentMap<String, FutureTask<Path>>> BINARIES_BY_SESSION = new WeakHashMap<>();
+
+    private SessionBinaries() {
+    }
+
+    /**
+     * A binary resolution.
+     */
+    @FunctionalInterface
+    public interface Resolution {
+        /**
+         * @return the resolved binary.
+         * @throws MojoExecutionException if the binary cannot be resolved.
+         * @throws IOException            if some io operation fails.
+         */
+        Path resolve() throws MojoExecutionException, IOException;
+    }
+
+    /**
+     * Returns the binary already resolved for the given session and key, performing the resolution if there is none
+     * yet or if the previously resolved binary is gone (e.g. because its project has been cleaned).
+     * Failed resolutions are not remembered.
+     *
+     * @param session    an object identifying the maven session (it must live as long as the session does).
+     * @param key        identifies what the resolution produces.
+     * @param resolution the resolution to perform if needed.
+     * @return the resolved binary.
+     * @throws MojoExecutionException if the binary cannot be resolved.
+     * @throws IOException            if some io operation fails.
+     * @throws InterruptedException   if interrupted while waiting for a concurrent resolution of the same binary.
+     */
+    public static Path resolve(Object session, String key, Resolution resolution) throws MojoExecutionException, IOException, InterruptedException {
+        final ConcurrentMap<String, FutureTask<Path>> binaries = binariesOf(session);
+        while (true) {
+            final FutureTask<Path> newTask = new FutureTask<>(() -> resolution.resolve());
+            final FutureTask<Path> existingTask = binaries.putIfAbsent(key, newTask);
+            final FutureTask<Path> task = existingTask == null ? newTask : existingTask;
+            if (existingTask == null) {
+                newTask.run();
+            }
+
+            try {
+                final Path binary = task.get();
+                if (existingTask == null || Files.isRegularFile(binary)) {
+                    return binary;
+                }
+                // gone in the meantime, resolve it again
+                binaries.remove(key, task);
+            } catch (ExecutionException e) {
+                binaries.remove(key, task);
+                if (existingTask != null) {
+                    // somebody else failed, let's try ourselves
+                    continue;
+                }
+                final Throwable cause = e.getCause();
+                if (cause instanceof MojoExecutionException) {
+                    throw (MojoExecutionException) cause;
+                }
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new MojoExecutionException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    private static synchronized ConcurrentMap<String, FutureTask<Path>> binariesOf(Object session) {
+        return BINARIES_BY_SESSION.computeIfAbsent(session, ignored -> new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,54 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds how many shellcheck processes run at the same time in a maven session, across all the modules of a
+ * reactor.
+ * <p>
+ * Each execution already bounds its own processes (see the parallelism parameter), but in parallel reactor builds
+ * many executions run at the same time and, without a common bound, they would start up to parallelism processes
+ * each, oversubscribing the machine. Sessions are weakly referenced, so their slots are forgotten when the session
+ * is gone.
+ */
+public final class SessionProcessSlots {
+
+    private static final Map<Object, Semaphore> SLOTS_BY_SESSION = new WeakHashMap<>();
+
+    private SessionProcessSlots() {
+    }
+
+    /**
+     * @param session an object identifying the maven session (it must live as long as the session does).
+     * @param slots   how many processes can run at the same time in the session: it must be the same for all the
+     *                calls for a session (i.e. come from the session configuration), only the first one decides it.
+     * @return the semaphore whose permits are the process slots of the session.
+     */
+    public static synchronized Semaphore of(Object session, int slots) {
+        return SLOTS_BY_SESSION.computeIfAbsent(session, ignored -> new Semaphore(Math.max(1, slots), true));
+    }
+}
@@ -0,0 +1,72 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+/**
+ * The severity levels of shellcheck diagnostics, from the most to the least severe.
+ */
+public enum Severity {
+
+    /**
+     * Errors, e.g. the script will not parse or will fail at runtime.
+     */
+    error,
+
+    /**
+     * Warnings, e.g. likely bugs.
+     */
+    warning,
+
+    /**
+     * Informational messages, e.g. things that may or may not be a problem.
+     */
+    info,
+
+    /**
+     * Style suggestions.
+     */
+    style;
+
+    /**
+     * @param other another severity.
+     * @return true if this severity is the same or more severe than the other one.
+     */
+    public boolean isAtLeast(Severity other) {
+        return this.ordinal() <= other.ordinal();
+    }
+
+    /**
+     * Parses a level as reported by shellcheck.
+     *
+     * @param level the level string (e.g. "warning").
+     * @return the matching severity, unknown levels are conservatively mapped to error.
+     */
+    public static Severity parse(String level) {
+        for (Severity severity : values()) {
+            if (severity.name().equals(level)) {
+                return severity;
+            }
+        }
+        return error;
+    }
+}
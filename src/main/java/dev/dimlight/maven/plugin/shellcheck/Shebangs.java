@@ -0,0 +1,115 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes shell scripts by their shebang, reading only a small prefix of each file.
+ */
+public final class Shebangs {
+
+    /**
+     * How many bytes are read from the start of each file: enough for any reasonable shebang line.
+     */
+    static final int HEADER_BYTES = 128;
+
+    /**
+     * The shells shellcheck supports (sh, bash, dash, ksh and their common variants), possibly versioned.
+     */
+    private static final Pattern SHELL = Pattern.compile("(?:ba|da|k|mk|pdk|a)?sh[0-9.]*");
+
+    private Shebangs() {
+    }
+
+    /**
+     * @param file a file.
+     * @return true if the file starts with a shell shebang. Binary files and unreadable files are not shell scripts.
+     */
+    public static boolean isShellScript(Path file) {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // keep reading until the header is full or the file ends
+            int read = 0;
+            while (header.hasRemaining() && read >= 0) {
+                read = channel.read(header);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return shellOf(header.array(), header.position()).isPresent();
+    }
+
+    /**
+     * @param header the first bytes of a file.
+     * @param length how many of them are valid.
+     * @return the shell named in the shebang of the header (e.g. "bash"), empty if the header does not start with a
+     * shell shebang or looks like a binary file.
+     */
+    static Optional<String> shellOf(byte[] header, int length) {
+        if (length < 2 || header[0] != '#' || header[1] != '!') {
+            return Optional.empty();
+        }
+        int lineEnd = 2;
+        while (lineEnd < length && header[lineEnd] != '\n' && header[lineEnd] != '\r') {
+            if (header[lineEnd] == 0) {
+                return Optional.empty();
+            }
+            lineEnd++;
+        }
+        for (int i = lineEnd; i < length; i++) {
+            if (header[i] == 0) {
+                return Optional.empty();
+            }
+        }
+
+        final String[] words = new String(header, 2, lineEnd - 2, StandardCharsets.ISO_8859_1).trim().split("\\s+");
+        int command = 0;
+        if (baseName(words[0]).equals("env")) {
+            // skip the env options and variable assignments: #!/usr/bin/env -S VAR=x bash -e
+            command = 1;
+            while (command < words.length && (words[command].startsWith("-") || words[command].contains("="))) {
+                command++;
+            }
+        } else if (baseName(words[0]).equals("busybox")) {
+            command = 1;
+        }
+        if (command >= words.length) {
+            return Optional.empty();
+        }
+        final String shell = baseName(words[command]);
+        return SHELL.matcher(shell).matches() ? Optional.of(shell) : Optional.empty();
+    }
+
+    private static String baseName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,302 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs the shellcheck binary, in a single pass, on the files of all the projects in the reactor.
+ * <p>
+ * The projects aggregated are the ones configuring this plugin (in their build plugins), unless
+ * includeProjectsWithoutPlugin is true, and the one this goal runs in. The files of each project are the ones the
+ * check goal would find with each configuration of this plugin in the project (the plugin configuration or any of its
+ * executions, even the ones not bound to any phase): its sourceDirs (src/main/sh if there are none), discovery and
+ * shellFileExtension. In the project this goal runs in, the sourceDirs, discovery and shellFileExtension of this goal
+ * are used too. Projects configuring skip are left out. Files belonging to more than one project are checked once, and
+ * they are reported with the first project (in reactor order) they belong to.
+ * <p>
+ * All the files are checked together, so they are chunked (and checked in parallel) as a whole instead of project by
+ * project. The output is always parsed (see parseOutput), so that the results can be split back per project: at the
+ * end the diagnostics are reported project by project, each project with its count of diagnostics and whether it
+ * fails (it has diagnostics with failOnSeverity or a higher severity, or files whose check did not complete). The
+ * diagnostics of each project are also saved in the plugin output directory of the project this goal runs in, in
+ * shellcheck.&lt;executionId&gt;.&lt;groupId&gt;.&lt;artifactId&gt;.diagnostics (one per line).
+ */
+@Mojo(name = "check-aggregate", aggregator = true, threadSafe = true, defaultPhase = LifecyclePhase.VERIFY)
+public class ShellCheckAggregateMojo extends AbstractShellCheckMojo {
+
+    @Parameter(defaultValue = "${reactorProjects}", readonly = true)
+    private List<MavenProject> reactorProjects;
+
+    /**
+     * A list of directory or FileSets where to look for sh files to check in the project this goal runs in, as for
+     * the check goal. The other projects use the sourceDirs of their own configuration of this plugin.
+     */
+    @Parameter(required = false)
+    private List<SourceDir> sourceDirs;
+
+    /**
+     * The expected extension to filter shell files (e.g. ".sh") in the project this goal runs in, as for the check
+     * goal. The other projects use the shellFileExtension of their own configuration of this plugin.
+     */
+    @Parameter(required = true, defaultValue = ".sh")
+    private String shellFileExtension;
+
+    /**
+     * How the files found in the sourceDirs of the project this goal runs in are recognized as shell files, as for the
+     * check goal. The other projects use the discovery of their own configuration of this plugin.
+     */
+    @Parameter(required = false, defaultValue = "includes")
+    private ShellFileDiscovery discovery;
+
+    /**
+     * If true, the reactor projects that do not configure this plugin are aggregated too, with their src/main/sh
+     * directory.
+     */
+    @Parameter(required = false, defaultValue = "false")
+    private boolean includeProjectsWithoutPlugin;
+
+    // the project each file to check belongs to, in reactor order
+    private final Map<String, MavenProject> projectsByFile = new LinkedHashMap<>();
+
+    // the diagnostics of each aggregated project (and of files of no project, if any) in reactor order
+    private final Map<String, ProjectDiagnostics> diagnosticsByProject = new LinkedHashMap<>();
+
+    /**
+     * The diagnostics of a project: counted, and written to a file as they come so that they are not kept in memory.
+     */
+    private static final class ProjectDiagnostics {
+
+        private final String name;
+        private final Path file;
+        private Writer writer;
+        private long count;
+        private long failing;
+        private long incompleteFiles;
+
+        private ProjectDiagnostics(String name, Path file) {
+            this.name = name;
+            this.file = file;
+        }
+    }
+
+    @Override
+    protected List<Path> filesToBeChecked() {
+        final Log log = getLog();
+        final String pluginKey = getExecution().getPlugin().getKey();
+
+        projectsByFile.clear();
+        diagnosticsByProject.clear();
+        final List<Path> filesToCheck = new ArrayList<>();
+        int duplicates = 0;
+        for (MavenProject project : reactorProjects) {
+            final Optional<List<Path>> shellFiles = shellFilesOf(project, pluginKey);
+            if (!shellFiles.isPresent()) {
+                log.debug("Skipping project [" + project.getArtifactId() + "]");
+                continue;
+            }
+            // the same file may be reached through different paths (e.g. "module/../other-module/script.sh")
+            final Set<Path> projectFiles = shellFiles.get().stream()
+                .map(file -> file.toAbsolutePath().normalize())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+            for (Path file : projectFiles) {
+                if (projectsByFile.putIfAbsent(file.toString(), project) == null) {
+                    filesToCheck.add(file);
+                } else {
+                    ++duplicates;
+                }
+            }
+            log.debug("Project [" + project.getArtifactId() + "] has [" + projectFiles.size() + "] files to check");
+            diagnosticsByProject.put(project.getGroupId() + ":" + project.getArtifactId(), new ProjectDiagnostics(
+                "Project [" + project.getArtifactId() + "]",
+                diagnosticsFile(project.getGroupId() + "." + project.getArtifactId())));
+        }
+        log.info("Checking [" + filesToCheck.size() + "] files of [" + diagnosticsByProject.size() + "] projects ([" + duplicates +
+            "] files belonging to more than one project are checked once)");
+
+        filesToCheck.sort(Comparator.comparing(path -> path.toAbsolutePath().toString()));
+        return filesToCheck;
+    }
+
+    /**
+     * @param project   a reactor project.
+     * @param pluginKey the key of this plugin.
+     * @return the shell files the check goal would find with each configuration of this plugin in the project (its
+     * sourceDirs, discovery and shellFileExtension) or, for the project this goal runs in, with the parameters of this
+     * goal; empty if the project configures skip, or does not configure this plugin (unless
+     * includeProjectsWithoutPlugin).
+     */
+    private Optional<List<Path>> shellFilesOf(MavenProject project, String pluginKey) {
+        final Log log = getLog();
+        final Path baseDir = project.getBasedir().toPath();
+        final boolean ownProject = project.getBasedir().equals(getMavenProject().getBasedir());
+        // a plugin declared with inherited false still shows up, without executions and configuration, in the children
+        final Optional<Plugin> plugin = project.getBuildPlugins().stream()
+            .filter(buildPlugin -> pluginKey.equals(buildPlugin.getKey()))
+            .filter(buildPlugin -> !buildPlugin.getExecutions().isEmpty() || buildPlugin.getConfiguration() != null
+                || declaresPlugin(project, pluginKey))
+            .findFirst();
+        if (!plugin.isPresent() && !ownProject && !includeProjectsWithoutPlugin) {
+            return Optional.empty();
+        }
+
+        // maven merges the plugin configuration into the configuration of each execution, the parameters of this
+        // execution are already injected
+        final List<PluginExecution> executions = plugin.map(Plugin::getExecutions).orElseGet(Collections::emptyList);
+        final List<Xpp3Dom> configurations = new ArrayList<>();
+        if (executions.isEmpty()) {
+            plugin.map(Plugin::getConfiguration).map(Xpp3Dom.class::cast).ifPresent(configurations::add);
+        } else {
+            executions.stream()
+                .filter(pluginExecution -> !(ownProject && pluginExecution.getId().equals(getExecution().getExecutionId())))
+                .map(PluginExecution::getConfiguration).map(Xpp3Dom.class::cast).forEach(configurations::add);
+        }
+
+        final boolean skip = configurations.stream()
+            .anyMatch(configuration -> configuration != null && configuration.getChild("skip") != null
+                && Boolean.parseBoolean(configuration.getChild("skip").getValue()));
+        if (skip && !ownProject) {
+            return Optional.empty();
+        }
+
+        final List<Path> shellFiles = new ArrayList<>();
+        if (ownProject) {
+            shellFiles.addAll(SourceDirs.shellFiles(Optional.ofNullable(sourceDirs), baseDir, discovery, shellFileExtension, log));
+        } else if (configurations.isEmpty()) {
+            shellFiles.addAll(SourceDirs.shellFiles((Xpp3Dom) null, baseDir, log));
+        }
+        if (!skip) {
+            configurations.forEach(configuration -> shellFiles.addAll(SourceDirs.shellFiles(configuration, baseDir, log)));
+        }
+        return Optional.of(shellFiles);
+    }
+
+    /**
+     * @param project   a reactor project.
+     * @param pluginKey the key of this plugin.
+     * @return true if the pom of the project itself (not of its parents) declares this plugin.
+     */
+    private static boolean declaresPlugin(MavenProject project, String pluginKey) {
+        return Optional.ofNullable(project.getOriginalModel().getBuild())
+            .map(build -> build.getPlugins().stream().anyMatch(declaredPlugin -> pluginKey.equals(declaredPlugin.getKey())))
+            .orElse(false);
+    }
+
+    @Override
+    protected boolean parsesOutput() {
+        return true;
+    }
+
+    @Override
+    protected void logDiagnostic(Diagnostic diagnostic) {
+        final ProjectDiagnostics projectDiagnostics = diagnosticsOf(diagnostic.file);
+        try {
+            if (projectDiagnostics.writer == null) {
+                Files.createDirectories(getPluginPaths().getPluginOutputDirectory());
+                projectDiagnostics.writer = Files.newBufferedWriter(projectDiagnostics.file, StandardCharsets.UTF_8);
+            }
+            projectDiagnostics.writer.write(diagnostic.toString());
+            projectDiagnostics.writer.write(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ++projectDiagnostics.count;
+        if (diagnostic.level.isAtLeast(getFailOnSeverity())) {
+            ++projectDiagnostics.failing;
+        }
+    }
+
+    // a false positive due to redundant null checks in try-with-resources synthesized finally
+    @SuppressFBWarnings("RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE")
+    @Override
+    protected void diagnosticsLogged(Set<Path> incompleteFiles) throws IOException {
+        for (Path incompleteFile : incompleteFiles) {
+            ++diagnosticsOf(incompleteFile).incompleteFiles;
+        }
+
+        final Log log = getLog();
+        for (ProjectDiagnostics projectDiagnostics : diagnosticsByProject.values()) {
+            if (projectDiagnostics.writer != null) {
+                projectDiagnostics.writer.close();
+            } else {
+                Files.createDirectories(getPluginPaths().getPluginOutputDirectory());
+                Files.write(projectDiagnostics.file, new byte[0]);
+            }
+
+            final boolean fails = projectDiagnostics.failing > 0 || projectDiagnostics.incompleteFiles > 0;
+            final String summary = "------ " + projectDiagnostics.name + ": [" + projectDiagnostics.count + "] diagnostics, ["
+                + projectDiagnostics.failing + "] with severity [" + getFailOnSeverity() + "] or higher"
+                + (projectDiagnostics.incompleteFiles > 0 ? ", [" + projectDiagnostics.incompleteFiles + "] files not completely checked" : "")
+                + ": " + (fails ? "FAILED" : "OK") + " -----------------------------------------";
+            if (fails) {
+                log.warn(summary);
+            } else {
+                log.info(summary);
+            }
+            try (Stream<String> lines = Files.lines(projectDiagnostics.file, StandardCharsets.UTF_8)) {
+                lines.forEach(log::warn);
+            }
+        }
+    }
+
+    /**
+     * @param file a file.
+     * @return the diagnostics of the project the file belongs to.
+     */
+    private ProjectDiagnostics diagnosticsOf(Path file) {
+        final MavenProject project = projectsByFile.get(file.toAbsolutePath().normalize().toString());
+        return project == null
+            ? diagnosticsByProject.computeIfAbsent("", ignored -> new ProjectDiagnostics("Other files", diagnosticsFile("other-files")))
+            : diagnosticsByProject.get(project.getGroupId() + ":" + project.getArtifactId());
+    }
+
+    private Path diagnosticsFile(String name) {
+        return getPluginPaths().getPathInPluginOutputDirectory("shellcheck." + getExecution().getExecutionId() + "." + name + ".diagnostics");
+    }
+}
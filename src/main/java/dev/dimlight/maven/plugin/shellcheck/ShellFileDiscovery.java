@@ -0,0 +1,42 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+/**
+ * The ways the files found in the source dirs are recognized as shell files.
+ */
+public enum ShellFileDiscovery {
+
+    /**
+     * Every file matched by the includes/excludes of the source dirs is a shell file.
+     */
+    includes,
+
+    /**
+     * Among the files matched by the includes/excludes of the source dirs, the shell files are the ones ending with
+     * the shellFileExtension and the ones starting with a shell shebang (e.g. "#!/bin/bash", "#!/usr/bin/env sh").
+     * Only the first bytes of each file are read, so that scanning large trees is cheap.
+     */
+    shebang
+}
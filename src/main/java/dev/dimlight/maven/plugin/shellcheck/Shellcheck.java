@@ -22,12 +22,25 @@ package dev.dimlight.maven.plugin.shellcheck;
  * #L%
  */
 
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * A thin java wrapper over the shellcheck binary for execution.
@@ -80,18 +93,94 @@ public class Shellcheck {
         public final Path stderr;
 
         /**
-         * @param runId    the id of the run.
-         * @param cmdLine  the cmd line of the run.
-         * @param exitCode the exit code of the shellcheck invocation.
-         * @param stdout   the path where stdout has been redirected.
-         * @param stderr   the path where stderr has been redirected.
+         * How many diagnostics of each severity were parsed from the json1 output of the run (severities with no
+         * diagnostics are missing). Always empty if the output was not parsed, the diagnostics themselves are not kept
+         * but can be read back from the captured stdout, see {@link #forEachDiagnostic(Consumer)}.
          */
-        public Result(String runId, List<String> cmdLine, int exitCode, Path stdout, Path stderr) {
+        public final Map<Severity, Long> diagnosticCounts;
+
+        /**
+         * How long the shellcheck invocation took, in milliseconds.
+         */
+        public final long elapsedMillis;
+
+        /**
+         * How much of {@link #elapsedMillis} went in starting the process, in milliseconds.
+         */
+        public final long spawnMillis;
+
+        /**
+         * The cpu time and memory used by the shellcheck process, as far as they could be sampled (unknown when not
+         * sampled, see {@link Shellcheck#run(String, Path, List, List, Path, Path, boolean, long, boolean)}).
+         */
+        public final ProcessUsage usage;
+
+        /**
+         * True if the shellcheck process took too long and was killed, see
+         * {@link Shellcheck#run(String, Path, List, List, Path, Path, boolean, long, boolean)}.
+         */
+        public final boolean timedOut;
+
+        /**
+         * @param runId            the id of the run.
+         * @param cmdLine          the cmd line of the run.
+         * @param exitCode         the exit code of the shellcheck invocation.
+         * @param stdout           the path where stdout has been redirected.
+         * @param stderr           the path where stderr has been redirected.
+         * @param diagnosticCounts how many diagnostics of each severity were parsed from stdout.
+         * @param elapsedMillis    how long the invocation took.
+         * @param spawnMillis      how long starting the process took.
+         * @param usage            the resources used by the process.
+         * @param timedOut         true if the process was killed for taking too long.
+         */
+        Result(String runId, List<String> cmdLine, int exitCode, Path stdout, Path stderr, Map<Severity, Long> diagnosticCounts,
+               long elapsedMillis, long spawnMillis, ProcessUsage usage, boolean timedOut) {
             this.runId = runId;
             this.cmdLine = cmdLine;
             this.exitCode = exitCode;
             this.stdout = stdout;
             this.stderr = stderr;
+            this.diagnosticCounts = diagnosticCounts;
+            this.elapsedMillis = elapsedMillis;
+            this.spawnMillis = spawnMillis;
+            this.usage = usage;
+            this.timedOut = timedOut;
+        }
+
+        /**
+         * @return how many diagnostics were parsed from the output of the run.
+         */
+        public long diagnosticCount() {
+            return diagnosticCounts.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /**
+         * @param severity a severity.
+         * @return how many diagnostics with the given severity or a higher one were parsed from the output of the run.
+         */
+        public long diagnosticCount(Severity severity) {
+            return diagnosticCounts.entrySet().stream()
+                .filter(count -> count.getKey().isAtLeast(severity))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        }
+
+        /**
+         * Reads the diagnostics back from the captured stdout, one at a time and in the order shellcheck reported
+         * them, so that they never need to be held in memory as a whole.
+         * Meant for runs whose output was parsed: the output of an incomplete run is read as far as it is valid json1.
+         *
+         * @param consumer receives each diagnostic.
+         * @throws IOException if the captured stdout cannot be read (or parsed, for a complete run).
+         */
+        public void forEachDiagnostic(Consumer<Diagnostic> consumer) throws IOException {
+            try (Reader reader = Files.newBufferedReader(stdout, StandardCharsets.UTF_8)) {
+                Json1Parser.parse(reader, consumer);
+            } catch (IOException e) {
+                if (isComplete()) {
+                    throw e;
+                }
+            }
         }
 
         /**
@@ -100,10 +189,64 @@ public class Shellcheck {
         public boolean isNotOk() {
             return exitCode != 0;
         }
+
+        /**
+         * @return true if shellcheck managed to check all the files, whether it found problems (exit code 1) or not
+         * (exit code 0).
+         */
+        public boolean isComplete() {
+            return !timedOut && (exitCode == 0 || exitCode == 1);
+        }
     }
 
     /**
-     * Runs the provided shellcheck binary capturing its output and return code.
+     * Replaces any output format option in the given args with the given format.
+     *
+     * @param args   the command line args, as configured.
+     * @param format the wanted output format (e.g. "json1").
+     * @return a copy of the args, with all the "-f x", "-fx", "--format x" and "--format=x" options replaced by a
+     * single "--format=format".
+     */
+    public static List<String> withFormat(List<String> args, String format) {
+        final List<String> out = new ArrayList<>(args.size() + 1);
+        for (int i = 0; i < args.size(); i++) {
+            final String arg = args.get(i);
+            if (arg.equals("-f") || arg.equals("--format")) {
+                ++i; // skip the value as well
+            } else if (!arg.startsWith("--format=") && !(arg.startsWith("-f") && !arg.startsWith("--"))) {
+                out.add(arg);
+            }
+        }
+        out.add("--format=" + format);
+        return out;
+    }
+
+    /**
+     * Builds the cmd line "shellcheck args... file1.sh file2.sh ...".
+     *
+     * @param shellcheckBinary the binary for shellcheck
+     * @param args             the command line args to be passed to the shellcheck binary
+     * @param scriptsToCheck   the list of arguments to shellcheck
+     * @return the command and its args, files as absolute paths.
+     */
+    public static List<String> commandLine(Path shellcheckBinary, List<String> args, List<Path> scriptsToCheck) {
+        final List<String> commandAndArgs = new ArrayList<>(1 + args.size() + scriptsToCheck.size());
+        commandAndArgs.add(shellcheckBinary.toFile().getAbsolutePath()); // the shellcheck binary
+        commandAndArgs.addAll(args); // the args
+        scriptsToCheck.forEach(path -> commandAndArgs.add(path.toFile().getAbsolutePath()));
+        return commandAndArgs;
+    }
+
+    /**
+     * Runs the provided shellcheck binary capturing its output and return code, optionally parsing its output and
+     * killing it if it takes too long.
+     * <p>
+     * When parsing, args are expected to ask for the json1 format (see {@link #withFormat(List, String)}): stdout
+     * is parsed while shellcheck runs, as it is being written to the captured stdout file, so that no matter how big
+     * the output is it never needs to be held in memory as a whole.
+     * <p>
+     * A process that does not finish in time is killed along with all of its descendants (on java 9+, only the
+     * process itself on java 8) and its result is marked as {@link Result#timedOut}.
      *
      * @param runId            a string label used to mark the output stdout/stderr files for the run.
      * @param shellcheckBinary the binary for shellcheck
@@ -111,8 +254,12 @@ public class Shellcheck {
      * @param scriptsToCheck   the list of arguments to shellcheck
      * @param capturedStdout   the path where the captured stdout should be redirected
      * @param capturedStderr   the path where the captured stderr should be redirected
-     * @return a result object containing exit code and captured outputs (on file)
-     * @throws IOException          if something goes bad doing io things (writing files etc...)
+     * @param parseOutput      true to parse stdout as json1 into {@link Result#diagnosticCounts}
+     * @param timeoutMillis    how long shellcheck can run before being killed, 0 or less meaning forever
+     * @param sampleUsage      true to sample the cpu time and memory used by the process into {@link Result#usage}
+     * @return a result object containing exit code, captured outputs (on file) and diagnostic counts, if parsed
+     * @throws IOException          if something goes bad doing io things (writing files etc...) or if the output of
+     *                              a complete run cannot be parsed
      * @throws InterruptedException if the thread gets interrupted while waiting for shellcheck to finish
      */
     public static Result run(String runId,
@@ -120,24 +267,162 @@ public class Shellcheck {
                              List<String> args,
                              List<Path> scriptsToCheck,
                              Path capturedStdout,
-                             Path capturedStderr) throws IOException, InterruptedException {
+                             Path capturedStderr,
+                             boolean parseOutput,
+                             long timeoutMillis,
+                             boolean sampleUsage) throws IOException, InterruptedException {
 
-        // build the cmd line args "shellcheck file1.sh file2.sh ..."
-        final List<String> commandAndArgs = new ArrayList<>();
-        commandAndArgs.add(shellcheckBinary.toFile().getAbsolutePath()); // the shellcheck binary
-        commandAndArgs.addAll(args); // the args
-        commandAndArgs.addAll(scriptsToCheck.stream()
-            .map(path -> path.toFile().getAbsolutePath())
-            .collect(Collectors.toList()));
+        final List<String> commandAndArgs = commandLine(shellcheckBinary, args, scriptsToCheck);
 
         // finally launch shellcheck
-        final Process process = new ProcessBuilder()
-            .redirectOutput(capturedStdout.toFile())
+        final ProcessBuilder processBuilder = new ProcessBuilder()
             .redirectError(capturedStderr.toFile())
-            .command(commandAndArgs)
-            .start();
+            .command(commandAndArgs);
+        if (!parseOutput) {
+            processBuilder.redirectOutput(capturedStdout.toFile());
+        }
+        final FlightRecorderEvents.Invocation invocationEvent = FlightRecorderEvents.invocation(runId, scriptsToCheck.size());
+        final long startTime = System.nanoTime();
+        final Process process = processBuilder.start();
+        final long spawnMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        final ProcessUsage.Sampling usageSampling = sampleUsage ? ProcessUsage.sample(process) : ProcessUsage.none();
 
-        final int exitCode = process.waitFor();
-        return new Result(runId, Collections.unmodifiableList(commandAndArgs), exitCode, capturedStdout, capturedStderr);
+        // stdout is parsed on its own thread, so that this one can be interrupted while waiting for the process
+        final OutputParser outputParser = parseOutput ? new OutputParser(process.getInputStream(), capturedStdout) : null;
+        final Thread outputParserThread = parseOutput ? new Thread(outputParser, "shellcheck-output-" + runId) : null;
+        if (outputParserThread != null) {
+            outputParserThread.setDaemon(true);
+            outputParserThread.start();
+        }
+
+        final boolean timedOut;
+        final int exitCode;
+        final ProcessUsage usage;
+        try {
+            timedOut = timeoutMillis > 0 && !process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (timedOut) {
+                destroyProcessTree(process);
+            }
+            exitCode = process.waitFor();
+            usage = usageSampling.stop();
+            if (outputParserThread != null) {
+                outputParserThread.join();
+            }
+        } catch (InterruptedException e) {
+            // don't leave shellcheck running behind us
+            usageSampling.stop();
+            destroyProcessTree(process);
+            throw e;
+        }
+
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        invocationEvent.end(exitCode, capturedStdout, capturedStderr);
+
+        final Map<Severity, Long> diagnosticCounts = outputParser == null ? Collections.emptyMap() : outputParser.diagnosticCounts;
+        final Result result = new Result(runId, Collections.unmodifiableList(commandAndArgs), exitCode, capturedStdout, capturedStderr,
+            Collections.unmodifiableMap(diagnosticCounts), elapsedMillis, spawnMillis, usage, timedOut);
+        if (outputParser != null) {
+            // killing a process closes its output as well, what it wrote up to then is all there is to capture
+            if (outputParser.captureFailure != null && !timedOut) {
+                throw outputParser.captureFailure;
+            }
+            // the output of incomplete runs (e.g. bad options) is not expected to be valid json1 anyway
+            if (outputParser.parseFailure != null && result.isComplete()) {
+                throw new IOException("Cannot parse the output of shellcheck run [" + runId + "]: " + outputParser.parseFailure.getMessage(),
+                    outputParser.parseFailure);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forcibly kills a process and, on java 9+, all of its descendants, so that none of them is left behind holding
+     * the captured output open.
+     *
+     * @param process the process to kill.
+     */
+    private static void destroyProcessTree(Process process) {
+        // descendants are looked up before killing the process, they would be reparented (and so lost) afterwards
+        final List<Object> descendants = new ArrayList<>();
+        try {
+            final Object stream = Process.class.getMethod("descendants").invoke(process);
+            ((Stream<?>) stream).forEach(descendants::add);
+            final Method destroyForcibly = Class.forName("java.lang.ProcessHandle").getMethod("destroyForcibly");
+            process.destroyForcibly();
+            for (Object descendant : descendants) {
+                destroyForcibly.invoke(descendant);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // java 8 (or no way to see the descendants): the process itself is all we can kill
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Parses the json1 stdout of a shellcheck process while copying it to the captured stdout file.
+     * Results are meant to be read only after the thread running the parser has been joined.
+     */
+    private static final class OutputParser implements Runnable {
+
+        private final InputStream stdout;
+        private final Path capturedStdout;
+        private final Map<Severity, Long> diagnosticCounts = new EnumMap<>(Severity.class);
+        private IOException parseFailure;
+        private IOException captureFailure;
+
+        private OutputParser(InputStream stdout, Path capturedStdout) {
+            this.stdout = stdout;
+            this.capturedStdout = capturedStdout;
+        }
+
+        @Override
+        public void run() {
+            try (OutputStream copy = Files.newOutputStream(capturedStdout);
+                 InputStream tee = new TeeInputStream(stdout, copy)) {
+                try {
+                    Json1Parser.parse(new BufferedReader(new InputStreamReader(tee, StandardCharsets.UTF_8)), diagnostic -> diagnosticCounts.merge(diagnostic.level, 1L, Long::sum));
+                } catch (IOException e) {
+                    parseFailure = e;
+                }
+                // whatever follows (or whatever is left after a parsing failure) still goes to the captured stdout
+                final byte[] buffer = new byte[8192];
+                while (tee.read(buffer) != -1) {
+                    continue;
+                }
+            } catch (IOException e) {
+                captureFailure = e;
+            }
+        }
+    }
+
+    /**
+     * An input stream that copies everything that is read from it to an output stream.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+
+        private final OutputStream copy;
+
+        private TeeInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if (read > 0) {
+                copy.write(b, off, read);
+            }
+            return read;
+        }
     }
 }
@@ -0,0 +1,129 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Finds the .shellcheckrc that shellcheck applies to each file: the first ".shellcheckrc" or "shellcheckrc" found
+ * from the directory of the file upwards or, if there is none, the one of the user (in $XDG_CONFIG_HOME or in the home
+ * directory).
+ * <p>
+ * Lookups and digests are cached, so an instance is meant to be used by a single execution.
+ */
+public final class Shellcheckrcs {
+
+    private static final String[] NAMES = {".shellcheckrc", "shellcheckrc"};
+
+    private final Map<Path, Optional<Path>> shellcheckrcByDirectory = new HashMap<>();
+    private final Map<Path, String> fingerprintsByShellcheckrc = new HashMap<>();
+    private Optional<Path> userShellcheckrc;
+
+    /**
+     * @param file a file to check.
+     * @return the .shellcheckrc that applies to the file, if any.
+     */
+    public Optional<Path> nearest(Path file) {
+        final Optional<Path> shellcheckrc = nearestInDirectory(file.toAbsolutePath().getParent());
+        return shellcheckrc.isPresent() ? shellcheckrc : userShellcheckrc();
+    }
+
+    /**
+     * @param files some files to check.
+     * @return the .shellcheckrc files that apply to them.
+     */
+    public Set<Path> nearest(Collection<Path> files) {
+        final Set<Path> shellcheckrcs = new TreeSet<>();
+        files.forEach(file -> nearest(file).ifPresent(shellcheckrcs::add));
+        return shellcheckrcs;
+    }
+
+    /**
+     * @param file a file to check.
+     * @return a fingerprint of the configuration the .shellcheckrc that applies to the file adds (its path and content),
+     * empty if there is none.
+     * @throws IOException if the .shellcheckrc cannot be read.
+     */
+    public String fingerprint(Path file) throws IOException {
+        final Optional<Path> shellcheckrc = nearest(file);
+        if (!shellcheckrc.isPresent()) {
+            return "";
+        }
+        String fingerprint = fingerprintsByShellcheckrc.get(shellcheckrc.get());
+        if (fingerprint == null) {
+            fingerprint = shellcheckrc.get() + " " + Digests.ofFile(shellcheckrc.get());
+            fingerprintsByShellcheckrc.put(shellcheckrc.get(), fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private Optional<Path> nearestInDirectory(Path directory) {
+        if (directory == null) {
+            return Optional.empty();
+        }
+        final Optional<Path> known = shellcheckrcByDirectory.get(directory);
+        if (known != null) {
+            return known;
+        }
+        Optional<Path> shellcheckrc = firstExisting(directory);
+        if (!shellcheckrc.isPresent()) {
+            shellcheckrc = nearestInDirectory(directory.getParent());
+        }
+        shellcheckrcByDirectory.put(directory, shellcheckrc);
+        return shellcheckrc;
+    }
+
+    private Optional<Path> userShellcheckrc() {
+        if (userShellcheckrc == null) {
+            final String xdgConfigHome = System.getenv("XDG_CONFIG_HOME");
+            final Path home = Paths.get(System.getProperty("user.home"));
+            final Path configHome = xdgConfigHome == null || xdgConfigHome.isEmpty() ? home.resolve(".config") : Paths.get(xdgConfigHome);
+            final Path xdgShellcheckrc = configHome.resolve("shellcheckrc");
+            final Path homeShellcheckrc = home.resolve(".shellcheckrc");
+            userShellcheckrc = Files.isRegularFile(xdgShellcheckrc)
+                ? Optional.of(xdgShellcheckrc)
+                : Files.isRegularFile(homeShellcheckrc) ? Optional.of(homeShellcheckrc) : Optional.empty();
+        }
+        return userShellcheckrc;
+    }
+
+    private static Optional<Path> firstExisting(Path directory) {
+        for (String name : NAMES) {
+            final Path candidate = directory.resolve(name);
+            if (Files.isRegularFile(candidate)) {
+                return Optional.of(candidate);
+            }
+        }
+        return Optional.empty();
+    }
+}
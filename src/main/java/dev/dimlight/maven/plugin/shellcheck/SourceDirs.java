@@ -0,0 +1,199 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Utilities to find the files to check in the configured source dirs.
+ */
+public final class SourceDirs {
+
+    private SourceDirs() {
+    }
+
+    /**
+     * By default, we search in src/main/sh for all *.sh files.
+     *
+     * @param baseDir the project base directory.
+     * @return the default source dir configuration.
+     */
+    public static SourceDir defaultSourceDir(Path baseDir) {
+        return defaultSourceDir(baseDir, ShellFileDiscovery.includes);
+    }
+
+    /**
+     * By default, we search in src/main/sh for all *.sh files or, when shell files are recognized by their shebang,
+     * for all files.
+     *
+     * @param baseDir   the project base directory.
+     * @param discovery how shell files are recognized.
+     * @return the default source dir configuration.
+     */
+    public static SourceDir defaultSourceDir(Path baseDir, ShellFileDiscovery discovery) {
+        final File srcMainSh = Paths.get(baseDir.toFile().getAbsolutePath(), "src", "main", "sh").toFile();
+        final SourceDir sourceDir = new SourceDir();
+        sourceDir.setDirectory(srcMainSh.getAbsolutePath());
+        sourceDir.addInclude(discovery == ShellFileDiscovery.shebang ? "**/*" : "**/*.sh");
+        return sourceDir;
+    }
+
+    /**
+     * Reads the source dirs from a plugin configuration (as it appears in the pom), the same way maven would inject
+     * them in the sourceDirs parameter. Relative directories are resolved against the project base directory.
+     *
+     * @param configuration the plugin (or plugin execution) configuration, may be null.
+     * @param baseDir       the project base directory.
+     * @return the configured source dirs, empty if the configuration has no sourceDirs.
+     */
+    public static Optional<List<SourceDir>> fromConfiguration(Xpp3Dom configuration, Path baseDir) {
+        final Xpp3Dom sourceDirsDom = configuration == null ? null : configuration.getChild("sourceDirs");
+        if (sourceDirsDom == null) {
+            return Optional.empty();
+        }
+        final List<SourceDir> sourceDirs = new ArrayList<>();
+        for (Xpp3Dom sourceDirDom : sourceDirsDom.getChildren()) {
+            final SourceDir sourceDir = new SourceDir();
+            final String directory = Optional.ofNullable(valueOf(sourceDirDom, "directory")).orElse("");
+            sourceDir.setDirectory(baseDir.resolve(directory).toFile().getAbsolutePath());
+            valuesOf(sourceDirDom, "includes").forEach(sourceDir::addInclude);
+            valuesOf(sourceDirDom, "excludes").forEach(sourceDir::addExclude);
+            Optional.ofNullable(valueOf(sourceDirDom, "followSymlinks")).map(Boolean::parseBoolean).ifPresent(sourceDir::setFollowSymlinks);
+            sourceDirs.add(sourceDir);
+        }
+        return Optional.of(sourceDirs);
+    }
+
+    /**
+     * Finds the shell files the check goal would find with the given parameters.
+     *
+     * @param sourceDirs         the configured source dirs, empty for the default one.
+     * @param baseDir            the project base directory.
+     * @param discovery          how shell files are recognized.
+     * @param shellFileExtension the extension of shell files (e.g. ".sh").
+     * @param log                a maven logger.
+     * @return the shell files, sorted by absolute path.
+     */
+    public static List<Path> shellFiles(Optional<List<SourceDir>> sourceDirs, Path baseDir, ShellFileDiscovery discovery,
+                                        String shellFileExtension, Log log) {
+        final List<SourceDir> searched = sourceDirs.orElseGet(() -> Collections.singletonList(defaultSourceDir(baseDir, discovery)));
+        return retainShellFiles(search(searched, log), discovery, shellFileExtension, log);
+    }
+
+    /**
+     * Finds the shell files the check goal would find with a plugin configuration (as it appears in the pom): its
+     * sourceDirs, discovery and shellFileExtension, or their defaults.
+     *
+     * @param configuration the plugin (or plugin execution) configuration, may be null.
+     * @param baseDir       the project base directory.
+     * @param log           a maven logger.
+     * @return the shell files, sorted by absolute path.
+     */
+    public static List<Path> shellFiles(Xpp3Dom configuration, Path baseDir, Log log) {
+        final ShellFileDiscovery discovery = Optional.ofNullable(configuration == null ? null : valueOf(configuration, "discovery"))
+            .map(ShellFileDiscovery::valueOf)
+            .orElse(ShellFileDiscovery.includes);
+        final String shellFileExtension = Optional.ofNullable(configuration == null ? null : valueOf(configuration, "shellFileExtension"))
+            .orElse(".sh");
+        return shellFiles(fromConfiguration(configuration, baseDir), baseDir, discovery, shellFileExtension, log);
+    }
+
+    /**
+     * Walks the source locations searching for shell files.
+     *
+     * @param sourceDirs the source locations.
+     * @param log        a maven logger.
+     * @return the list of files to be checked by shellcheck, sorted by absolute path.
+     */
+    public static List<Path> search(List<SourceDir> sourceDirs, Log log) {
+        final List<Path> includedFiles = SourceTreeWalker.includedFiles(sourceDirs);
+
+        // The walk returns files in no particular order, so let's sort them by some arbitrary (invariant) criterion.
+        // We sort by absolute path, so that files in the same directory "tend to stay next to each other".
+        // The keys are computed once per file, not once per comparison.
+        final List<Map.Entry<String, Path>> keyedFiles = new ArrayList<>(includedFiles.size());
+        includedFiles.forEach(file -> keyedFiles.add(new AbstractMap.SimpleImmutableEntry<>(file.toAbsolutePath().toString(), file)));
+        keyedFiles.sort(Map.Entry.comparingByKey());
+
+        final List<Path> filesToCheck = new ArrayList<>(keyedFiles.size());
+        for (Map.Entry<String, Path> keyedFile : keyedFiles) {
+            if (log.isDebugEnabled()) {
+                log.debug("Shellcheck will check file: [" + keyedFile.getKey() + "]");
+            }
+            filesToCheck.add(keyedFile.getValue());
+        }
+        return filesToCheck;
+    }
+
+    /**
+     * Keeps only the shell files among the found ones: with {@link ShellFileDiscovery#shebang} those are the files
+     * having the shell file extension or a shell shebang, with {@link ShellFileDiscovery#includes} all of them.
+     *
+     * @param files              the found files.
+     * @param discovery          how shell files are recognized.
+     * @param shellFileExtension the extension of shell files (e.g. ".sh"), files having it are not even opened.
+     * @param log                a maven logger.
+     * @return the shell files, in the original order.
+     */
+    public static List<Path> retainShellFiles(List<Path> files, ShellFileDiscovery discovery, String shellFileExtension, Log log) {
+        if (discovery == ShellFileDiscovery.includes) {
+            return files;
+        }
+        // headers are read concurrently: on large trees the time goes in opening files, not in parsing their first bytes
+        final List<Path> shellFiles = files.parallelStream()
+            .filter(file -> file.toString().endsWith(shellFileExtension) || Shebangs.isShellScript(file))
+            .collect(Collectors.toList());
+        log.debug("Shebang discovery: [" + shellFiles.size() + "]/[" + files.size() + "] found files are shell files");
+        return shellFiles;
+    }
+
+    private static String valueOf(Xpp3Dom dom, String childName) {
+        final Xpp3Dom child = dom.getChild(childName);
+        return child == null || child.getValue() == null ? null : child.getValue().trim();
+    }
+
+    private static List<String> valuesOf(Xpp3Dom dom, String childName) {
+        final Xpp3Dom child = dom.getChild(childName);
+        if (child == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(child.getChildren())
+            .map(Xpp3Dom::getValue)
+            .filter(value -> value != null && !value.trim().isEmpty())
+            .map(String::trim)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,67 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for the discovery of the files to check, only to be used through {@link FlightRecorderEvents}.
+ */
+@Name("dev.dimlight.shellcheck.SourceDiscovery")
+@Label("Shellcheck Source Discovery")
+@Description("Search of the files to check by the shellcheck-maven-plugin")
+@Category({"Maven", "Shellcheck"})
+@StackTrace(false)
+@SuppressFBWarnings(value = {"URF_UNREAD_FIELD"}, justification = "Event fields are read by the flight recorder.")
+final class SourceDiscoveryEvent extends Event {
+
+    @Label("Execution Id")
+    String executionId;
+
+    @Label("Files")
+    int files;
+
+    static FlightRecorderEvents.SourceDiscovery start(String executionId) {
+        final SourceDiscoveryEvent event = new SourceDiscoveryEvent();
+        if (!event.isEnabled()) {
+            return files -> {
+            };
+        }
+        event.executionId = executionId;
+        event.begin();
+        return files -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.files = files;
+                event.commit();
+            }
+        };
+    }
+}
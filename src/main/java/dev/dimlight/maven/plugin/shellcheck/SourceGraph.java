@@ -0,0 +1,359 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A persisted graph of which files each script sources (with "source" or "."), so that the fingerprint of a script
+ * can cover the files it depends on.
+ * <p>
+ * Shellcheck results for a script may depend on the files it sources (when they are followed, e.g. with
+ * --external-sources), so a script must be checked again when any of the files it sources, even transitively,
+ * changes. Finding what a script sources is a best effort: literal paths (and paths starting with a variable, like
+ * "$DIR/lib.sh", taken as relative to the script directory) and "# shellcheck source=" directives are recognized and
+ * resolved against the script directory and the project base directory. Files that cannot be found are ignored.
+ * <p>
+ * The graph is stored as a text file with a line per file, in the form
+ * "content-digest TAB absolute-path [TAB sourced-absolute-path]...", so that files whose content did not change are
+ * not parsed again.
+ */
+public class SourceGraph {
+
+    // a source command, at the start of a command: "source lib.sh", ". ./lib.sh", "&& source "$DIR/lib.sh""
+    private static final Pattern SOURCE_COMMAND = Pattern.compile(
+        "(?:^|[;&|{(]|\\bthen|\\bdo|\\belse)\\s*(?:source|\\.)\\s+([^;&|#<>]+)");
+    // a shellcheck directive telling where a sourced file is: "# shellcheck source=lib/common.sh"
+    private static final Pattern SOURCE_DIRECTIVE = Pattern.compile("^\\s*#\\s*shellcheck\\s.*\\bsource=(\\S+)");
+    private static final Pattern LEADING_VARIABLE = Pattern.compile("^\\$(?:\\w+|\\{[^}]*}|\\([^)]*\\))");
+
+    private final Path graphFile;
+    private final Path baseDir;
+    private final Map<String, Node> nodesByPath;
+
+    private static final class Node {
+        private final String digest;
+        private final List<String> sourced;
+
+        private Node(String digest, List<String> sourced) {
+            this.digest = digest;
+            this.sourced = sourced;
+        }
+    }
+
+    private SourceGraph(Path graphFile, Path baseDir, Map<String, Node> nodesByPath) {
+        this.graphFile = graphFile;
+        this.baseDir = baseDir;
+        this.nodesByPath = nodesByPath;
+    }
+
+    /**
+     * Loads the graph from the given file, an empty graph is returned if the file does not exist.
+     *
+     * @param graphFile the file where the graph is persisted.
+     * @param baseDir   the project base directory, sourced paths are also resolved against it.
+     * @return the loaded graph.
+     * @throws IOException if the graph file exists but cannot be read.
+     */
+    public static SourceGraph load(Path graphFile, Path baseDir) throws IOException {
+        final Map<String, Node> nodesByPath = new ConcurrentHashMap<>();
+        if (Files.isRegularFile(graphFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(graphFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final String[] fields = line.split("\t");
+                    if (fields.length >= 2) {
+                        nodesByPath.put(fields[1], new Node(fields[0], Arrays.asList(fields).subList(2, fields.length)));
+                    }
+                }
+            }
+        }
+        return new SourceGraph(graphFile, baseDir, nodesByPath);
+    }
+
+    /**
+     * Updates the graph with the given files and the files they source, forgetting all the others.
+     *
+     * @param files the files to scan.
+     * @throws IOException if some file cannot be read.
+     */
+    public void update(Collection<Path> files) throws IOException {
+        // scan the files, then whatever they source that has not been scanned yet, until there's nothing new
+        final Map<String, Node> scanned = new ConcurrentHashMap<>();
+        Set<String> toScan = files.stream().map(SourceGraph::key).collect(Collectors.toCollection(LinkedHashSet::new));
+        while (!toScan.isEmpty()) {
+            try {
+                toScan.parallelStream().forEach(path -> {
+                    try {
+                        scanned.put(path, scan(Paths.get(path)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            toScan = scanned.values().stream()
+                .flatMap(node -> node.sourced.stream())
+                .filter(path -> !scanned.containsKey(path))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+        nodesByPath.clear();
+        nodesByPath.putAll(scanned);
+    }
+
+    /**
+     * Computes the fingerprints of the given files, each covering the file content, the content of all the files it
+     * sources (transitively) and the tool configuration. The graph is updated with the given files and the files they
+     * source, forgetting all the others.
+     *
+     * @param toolFingerprint the fingerprint of the tool configuration.
+     * @param files           the files to fingerprint.
+     * @return the fingerprint of each file.
+     * @throws IOException if some file cannot be read.
+     */
+    public Map<Path, String> fingerprints(String toolFingerprint, Collection<Path> files) throws IOException {
+        update(files);
+
+        final Map<Path, String> fingerprints = new HashMap<>();
+        for (Path file : files) {
+            final String path = key(file);
+            final MessageDigest digest = Digests.sha256();
+            Digests.update(digest, toolFingerprint);
+            Digests.update(digest, nodesByPath.get(path).digest);
+            for (String dependency : dependencies(path)) {
+                Digests.update(digest, dependency);
+                Digests.update(digest, nodesByPath.get(dependency).digest);
+            }
+            fingerprints.put(file, Digests.hex(digest.digest()));
+        }
+        return fingerprints;
+    }
+
+    /**
+     * @param file a file in the graph.
+     * @return the files sourced by the given file, directly or transitively, excluding the file itself.
+     */
+    public Set<Path> dependenciesOf(Path file) {
+        return dependenciesOf(Collections.singletonList(file));
+    }
+
+    /**
+     * @param files some files, the ones not in the graph have no dependencies.
+     * @return the files sourced by any of the given files, directly or transitively, excluding the given files.
+     */
+    public Set<Path> dependenciesOf(Collection<Path> files) {
+        final Set<String> paths = files.stream().map(SourceGraph::key).collect(Collectors.toSet());
+        final Set<Path> dependencies = new TreeSet<>();
+        for (String path : paths) {
+            for (String dependency : dependencies(path)) {
+                if (!paths.contains(dependency)) {
+                    dependencies.add(Paths.get(dependency));
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Persists the graph, replacing the previous one.
+     *
+     * @throws IOException if the graph cannot be written.
+     */
+    public void save() throws IOException {
+        final Path directory = graphFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        final Path tmp = Paths.get(graphFile.toAbsolutePath() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Node> entry : new TreeMap<>(nodesByPath).entrySet()) {
+                writer.write(entry.getValue().digest + "\t" + entry.getKey());
+                for (String sourced : entry.getValue().sourced) {
+                    writer.write("\t" + sourced);
+                }
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, graphFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param path the absolute path of a file.
+     * @return the absolute paths of the files sourced by it, directly or transitively, sorted.
+     */
+    private Set<String> dependencies(String path) {
+        final Set<String> dependencies = new TreeSet<>();
+        final Deque<String> toVisit = new ArrayDeque<>(sourcedBy(path));
+        while (!toVisit.isEmpty()) {
+            final String dependency = toVisit.pop();
+            if (!dependency.equals(path) && dependencies.add(dependency)) {
+                toVisit.addAll(sourcedBy(dependency));
+            }
+        }
+        return dependencies;
+    }
+
+    private List<String> sourcedBy(String path) {
+        final Node node = nodesByPath.get(path);
+        return node == null ? Collections.<String>emptyList() : node.sourced;
+    }
+
+    /**
+     * Digests a file and finds what it sources, unless its content did not change since the last scan.
+     */
+    private Node scan(Path file) throws IOException {
+        final byte[] content = Files.readAllBytes(file);
+        final String digest = Digests.hex(Digests.sha256().digest(content));
+        final Node previous = nodesByPath.get(key(file));
+        if (previous != null && previous.digest.equals(digest)) {
+            return previous;
+        }
+        // only the (ascii) keywords and paths matter, so a lenient single byte decoding is enough
+        final List<String> lines = Arrays.asList(new String(content, StandardCharsets.ISO_8859_1).split("\r?\n"));
+        final List<String> sourced = new ArrayList<>();
+        for (String sourcedPath : sourcedPaths(lines)) {
+            for (Path candidate : candidates(file, sourcedPath)) {
+                if (Files.isRegularFile(candidate) && !sourced.contains(key(candidate))) {
+                    sourced.add(key(candidate));
+                }
+            }
+        }
+        return new Node(digest, Collections.unmodifiableList(sourced));
+    }
+
+    /**
+     * @param lines the lines of a script.
+     * @return the paths sourced by the script, as written (unquoted) in the source commands and directives.
+     */
+    static List<String> sourcedPaths(List<String> lines) {
+        final List<String> sourcedPaths = new ArrayList<>();
+        for (String line : lines) {
+            final Matcher directive = SOURCE_DIRECTIVE.matcher(line);
+            if (directive.find()) {
+                sourcedPaths.add(unquote(directive.group(1)));
+                continue;
+            }
+            final Matcher command = SOURCE_COMMAND.matcher(line);
+            while (command.find()) {
+                final String argument = command.group(1).trim();
+                if (!argument.isEmpty()) {
+                    // only the first word is the sourced file, the others are its positional parameters
+                    sourcedPaths.add(unquote(firstWord(argument)));
+                }
+            }
+        }
+        return sourcedPaths;
+    }
+
+    /**
+     * @param script      the sourcing script.
+     * @param sourcedPath the path of the sourced file, as written in the script.
+     * @return where the sourced file could be.
+     */
+    private List<Path> candidates(Path script, String sourcedPath) {
+        String path = sourcedPath;
+        final Matcher variable = LEADING_VARIABLE.matcher(path);
+        if (variable.find()) {
+            // e.g. "$DIR/lib.sh", "$(dirname "$0")/lib.sh": most likely the directory of the script
+            path = path.substring(variable.end()).replaceFirst("^/+", "");
+        }
+        if (path.isEmpty() || path.contains("$") || path.equals("/dev/null")) {
+            return Collections.emptyList();
+        }
+        final Path asPath;
+        try {
+            asPath = Paths.get(path);
+        } catch (RuntimeException e) {
+            // not a path after all
+            return Collections.emptyList();
+        }
+        if (asPath.isAbsolute()) {
+            return Collections.singletonList(asPath.normalize());
+        }
+        final List<Path> candidates = new ArrayList<>();
+        final Path scriptDir = script.toAbsolutePath().getParent();
+        if (scriptDir != null) {
+            candidates.add(scriptDir.resolve(asPath).normalize());
+        }
+        candidates.add(baseDir.toAbsolutePath().resolve(asPath).normalize());
+        return candidates;
+    }
+
+    private static String firstWord(String argument) {
+        // a word ends at the first whitespace that is not quoted (quotes may be nested in $(...) too)
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < argument.length(); i++) {
+            final char c = argument.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '(' || c == '{') {
+                ++depth;
+            } else if (c == ')' || c == '}') {
+                --depth;
+            } else if (Character.isWhitespace(c) && depth <= 0) {
+                return argument.substring(0, i);
+            }
+        }
+        return argument;
+    }
+
+    private static String unquote(String word) {
+        return word.replace("\"", "").replace("'", "");
+    }
+
+    private static String key(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+}
@@ -0,0 +1,190 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.maven.shared.model.fileset.FileSet;
+import org.apache.maven.shared.utils.io.DirectoryScanner;
+import org.apache.maven.shared.utils.io.MatchPatterns;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the files included by a {@link FileSet} exactly as FileSetManager (i.e. DirectoryScanner) does, but walking
+ * the subdirectories in parallel on a fork/join pool.
+ * <p>
+ * The include/exclude patterns are compiled once per file set, and the directories whose whole content is excluded
+ * (e.g. by "**&#47;.git/**") are not walked at all, while DirectoryScanner walks them anyway.
+ */
+public final class SourceTreeWalker {
+
+    private final MatchPatterns includes;
+    private final MatchPatterns excludes;
+    private final MatchPatterns excludedTrees;
+    private final boolean followSymlinks;
+
+    private SourceTreeWalker(FileSet fileSet) {
+        final List<String> includePatterns = normalized(fileSet.getIncludes());
+        if (includePatterns.isEmpty()) {
+            includePatterns.add("**");
+        }
+        final List<String> excludePatterns = normalized(fileSet.getExcludes());
+        if (fileSet.isUseDefaultExcludes()) {
+            excludePatterns.addAll(normalized(Arrays.asList(DirectoryScanner.DEFAULTEXCLUDES)));
+        }
+        // a directory matched by the X of an "X/**" exclude has all of its content excluded
+        final String everythingBelow = File.separator + "**";
+        final List<String> excludedTreePatterns = excludePatterns.stream()
+            .filter(pattern -> !pattern.startsWith("%") && pattern.endsWith(everythingBelow))
+            .map(pattern -> pattern.substring(0, pattern.length() - everythingBelow.length()))
+            .filter(pattern -> !pattern.isEmpty())
+            .collect(Collectors.toList());
+
+        this.includes = MatchPatterns.from(includePatterns.toArray(new String[0]));
+        this.excludes = MatchPatterns.from(excludePatterns.toArray(new String[0]));
+        this.excludedTrees = MatchPatterns.from(excludedTreePatterns.toArray(new String[0]));
+        this.followSymlinks = fileSet.isFollowSymlinks();
+    }
+
+    /**
+     * @param fileSets the file sets to walk.
+     * @return the files included by each file set, each one resolved against the directory of its file set, in no
+     * particular order.
+     */
+    public static List<Path> includedFiles(List<? extends FileSet> fileSets) {
+        return ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> {
+            final List<ForkJoinTask<List<Path>>> walks = fileSets.stream()
+                .map(fileSet -> ForkJoinTask.adapt(() -> new SourceTreeWalker(fileSet).walk(fileSet.getDirectory())).fork())
+                .collect(Collectors.toList());
+            return walks.stream()
+                .flatMap(walk -> walk.join().stream())
+                .collect(Collectors.toList());
+        }));
+    }
+
+    private List<Path> walk(String directory) {
+        final Path root = Paths.get(directory);
+        if (!Files.isDirectory(root)) {
+            return new ArrayList<>();
+        }
+        final List<String> relativePaths = new DirectoryWalk(root, "").call();
+        final List<Path> files = new ArrayList<>(relativePaths.size());
+        relativePaths.forEach(relativePath -> files.add(Paths.get(directory, relativePath)));
+        return files;
+    }
+
+    /**
+     * Collects the included files of a directory, forking a walk for each subdirectory that may hold some.
+     */
+    private final class DirectoryWalk implements Callable<List<String>> {
+
+        private final Path directory;
+        private final String relativePath;
+
+        private DirectoryWalk(Path directory, String relativePath) {
+            this.directory = directory;
+            this.relativePath = relativePath;
+        }
+
+        // a false positive due to redundant null checks in try-with-resources synthesized finally
+        @SuppressFBWarnings("RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE")
+        @Override
+        public List<String> call() {
+            final List<String> files = new ArrayList<>();
+            // when links are not followed DirectoryScanner skips the content of linked directories, but it does keep
+            // the links to files
+            if (!followSymlinks && Files.isSymbolicLink(directory)) {
+                return files;
+            }
+            final List<ForkJoinTask<List<String>>> subdirectoryWalks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    final String name = relativePath + entry.getFileName();
+                    final BasicFileAttributes attributes = attributesOf(entry);
+                    if (attributes == null) {
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        if (mayHoldIncludedFiles(name)) {
+                            subdirectoryWalks.add(ForkJoinTask.adapt(new DirectoryWalk(entry, name + File.separator)).fork());
+                        }
+                    } else if (attributes.isRegularFile() && includes.matches(name, true) && !excludes.matches(name, true)) {
+                        files.add(name);
+                    }
+                }
+            } catch (IOException e) {
+                // DirectoryScanner treats unreadable directories as empty
+                return files;
+            }
+            subdirectoryWalks.forEach(subdirectoryWalk -> files.addAll(subdirectoryWalk.join()));
+            return files;
+        }
+
+        private BasicFileAttributes attributesOf(Path entry) {
+            try {
+                return Files.readAttributes(entry, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // e.g. a dangling link, neither a file nor a directory for DirectoryScanner
+                return null;
+            }
+        }
+
+        /**
+         * Same as DirectoryScanner: included directories are walked, the others only if some include pattern may
+         * match below them. On top of that, directories whose whole content is excluded are never walked.
+         */
+        private boolean mayHoldIncludedFiles(String name) {
+            if (excludedTrees.matches(name, true)) {
+                return false;
+            }
+            return (includes.matches(name, true) && !excludes.matches(name, true)) || includes.matchesPatternStart(name, true);
+        }
+    }
+
+    /**
+     * Same normalization as DirectoryScanner: any slash becomes the system separator and a pattern ending with a
+     * separator matches everything below it.
+     */
+    private static List<String> normalized(List<String> patterns) {
+        return patterns.stream()
+            .map(pattern -> {
+                final String separated = pattern.trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+                return separated.endsWith(File.separator) ? separated + "**" : separated;
+            })
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+}
@@ -0,0 +1,233 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * A persisted history of how long shellcheck took to check each file.
+ * <p>
+ * Shellcheck only tells how long a whole invocation took. An invocation checking a single file measures that file;
+ * the time of an invocation checking several files, less the measured time of those of its files that have one, is
+ * split among the others proportionally to their sizes. Both are smoothed with the previous timing of the same file.
+ * Timings are used to predict the cost of checking files (to balance and order invocations), only measured ones to
+ * report the slowest files: a small file can be slow to check, which splitting by size cannot tell.
+ * <p>
+ * The history is stored as a text file with a line per file, in the form "micros size measured|estimated absolute-path".
+ * A measurement is kept until the file is measured again or its size changes.
+ */
+public class TimingHistory {
+
+    private final Path historyFile;
+    private final Map<String, Timing> timingsByPath;
+
+    private static final String MEASURED = "measured";
+    private static final String ESTIMATED = "estimated";
+
+    private static final class Timing {
+        private final long micros;
+        private final long size;
+        private final boolean measured;
+
+        private Timing(long micros, long size, boolean measured) {
+            this.micros = micros;
+            this.size = size;
+            this.measured = measured;
+        }
+    }
+
+    private TimingHistory(Path historyFile, Map<String, Timing> timingsByPath) {
+        this.historyFile = historyFile;
+        this.timingsByPath = timingsByPath;
+    }
+
+    /**
+     * Loads the history from the given file, an empty history is returned if the file does not exist.
+     *
+     * @param historyFile the file where the history is persisted.
+     * @return the loaded history.
+     * @throws IOException if the history file exists but cannot be read.
+     */
+    public static TimingHistory load(Path historyFile) throws IOException {
+        final Map<String, Timing> timingsByPath = new TreeMap<>();
+        if (Files.isRegularFile(historyFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(historyFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final String[] fields = line.split(" ", 4);
+                    if (fields.length == 4 && (MEASURED.equals(fields[2]) || ESTIMATED.equals(fields[2]))) {
+                        try {
+                            timingsByPath.put(fields[3], new Timing(Long.parseLong(fields[0]), Long.parseLong(fields[1]), MEASURED.equals(fields[2])));
+                        } catch (NumberFormatException e) {
+                            // a corrupted line costs just an estimate
+                            continue;
+                        }
+                    }
+                }
+            }
+        }
+        return new TimingHistory(historyFile, timingsByPath);
+    }
+
+    /**
+     * Records how long a shellcheck invocation took.
+     *
+     * @param files         the files checked by the invocation.
+     * @param size          the size of each file.
+     * @param elapsedMillis how long the invocation took.
+     */
+    public synchronized void record(List<Path> files, ToLongFunction<Path> size, long elapsedMillis) {
+        if (files.size() == 1) {
+            final Path file = files.get(0);
+            put(file, elapsedMillis * 1000, size.applyAsLong(file), true);
+            return;
+        }
+
+        // files already measured keep their measurement, the rest of the time goes to the others
+        long remainingMicros = elapsedMillis * 1000;
+        final List<Path> estimatedFiles = new ArrayList<>();
+        long totalWeight = 0;
+        for (Path file : files) {
+            final Timing measurement = measurement(file, size.applyAsLong(file));
+            if (measurement != null) {
+                remainingMicros -= measurement.micros;
+            } else {
+                estimatedFiles.add(file);
+                totalWeight += size.applyAsLong(file) + 1;
+            }
+        }
+        for (Path file : estimatedFiles) {
+            final long fileSize = size.applyAsLong(file);
+            put(file, Math.max(0, remainingMicros) * (fileSize + 1) / totalWeight, fileSize, false);
+        }
+    }
+
+    /**
+     * @return the measured timing of the file, if any and if the file size did not change since.
+     */
+    private Timing measurement(Path file, long size) {
+        final Timing timing = timingsByPath.get(key(file));
+        return timing != null && timing.measured && timing.size == size ? timing : null;
+    }
+
+    private void put(Path file, long micros, long size, boolean measured) {
+        final Timing previous = timingsByPath.get(key(file));
+        // an average with the previous timing of the same kind smooths out the noise of busy machines
+        final long smoothed = previous == null || previous.measured != measured ? micros : (previous.micros + micros) / 2;
+        timingsByPath.put(key(file), new Timing(smoothed, size, measured));
+    }
+
+    /**
+     * Builds a cost function predicting how long checking a file takes, based on the history.
+     * Files never checked before are estimated by size, at the average speed of the files in the history.
+     *
+     * @param size the size of each file.
+     * @return the predicted cost of checking each file (in microseconds, if there is some history).
+     */
+    public synchronized ToLongFunction<Path> predictedCost(ToLongFunction<Path> size) {
+        long knownMicros = 0;
+        long knownBytes = 0;
+        for (Timing timing : timingsByPath.values()) {
+            knownMicros += timing.micros;
+            knownBytes += timing.size + 1;
+        }
+        final double microsPerByte = knownBytes == 0 || knownMicros == 0 ? 1.0 : (double) knownMicros / knownBytes;
+        final Map<String, Timing> snapshot = new TreeMap<>(timingsByPath);
+        return file -> {
+            final Timing timing = snapshot.get(key(file));
+            return timing != null ? timing.micros : (long) Math.ceil((size.applyAsLong(file) + 1) * microsPerByte);
+        };
+    }
+
+    /**
+     * @param count the max number of files to return, 0 or less meaning none.
+     * @param among the files of interest.
+     * @return the (at most) count files that took the most to check, slowest first, with their measured time in
+     * microseconds. Files that were never checked on their own have no measured time and are not returned.
+     */
+    public synchronized List<Map.Entry<Path, Long>> slowest(int count, Collection<Path> among) {
+        final List<Map.Entry<Path, Long>> timings = new ArrayList<>();
+        for (Path file : among) {
+            final Timing timing = timingsByPath.get(key(file));
+            if (timing != null && timing.measured) {
+                timings.add(new AbstractMap.SimpleImmutableEntry<>(file, timing.micros));
+            }
+        }
+        timings.sort(Comparator.comparing((Map.Entry<Path, Long> entry) -> entry.getValue()).reversed()
+            .thenComparing(entry -> entry.getKey().toString()));
+        return timings.subList(0, Math.max(0, Math.min(count, timings.size())));
+    }
+
+    /**
+     * Forgets all the files that are not in the given collection (e.g. files that have been deleted).
+     *
+     * @param files the files to retain.
+     */
+    public synchronized void retainAll(Collection<Path> files) {
+        final Set<String> keys = new HashSet<>();
+        files.forEach(file -> keys.add(key(file)));
+        timingsByPath.keySet().retainAll(keys);
+    }
+
+    /**
+     * Persists the history, replacing the previous one.
+     *
+     * @throws IOException if the history cannot be written.
+     */
+    public synchronized void save() throws IOException {
+        final Path directory = historyFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        final Path tmp = Paths.get(historyFile.toAbsolutePath() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Timing> entry : timingsByPath.entrySet()) {
+                writer.write(entry.getValue().micros + " " + entry.getValue().size + " "
+                    + (entry.getValue().measured ? MEASURED : ESTIMATED) + " " + entry.getKey());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, historyFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String key(Path file) {
+        return file.toFile().getAbsolutePath();
+    }
+}
@@ -0,0 +1,126 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Remembers the state of the last check that found no problems, to tell cheaply whether checking again would be
+ * pointless.
+ * <p>
+ * The state is a stamp digesting the configuration and the stat data (path, size and modification time) of the files
+ * checked, so computing it reads no file content. The manifest file holds just the stamp.
+ */
+public class UpToDateManifest {
+
+    private final Path manifestFile;
+    private final String savedStamp;
+
+    private UpToDateManifest(Path manifestFile, String savedStamp) {
+        this.manifestFile = manifestFile;
+        this.savedStamp = savedStamp;
+    }
+
+    /**
+     * Loads the manifest from the given file, an empty manifest (that matches nothing) is returned if the file does
+     * not exist.
+     *
+     * @param manifestFile the file where the manifest is persisted.
+     * @return the loaded manifest.
+     * @throws IOException if the manifest file exists but cannot be read.
+     */
+    public static UpToDateManifest load(Path manifestFile) throws IOException {
+        final String savedStamp = Files.isRegularFile(manifestFile)
+            ? new String(Files.readAllBytes(manifestFile), StandardCharsets.UTF_8).trim()
+            : "";
+        return new UpToDateManifest(manifestFile, savedStamp);
+    }
+
+    /**
+     * Computes the stamp of a check.
+     *
+     * @param configuration whatever in the configuration affects the outcome of the check.
+     * @param files         the files to be checked (and the files they depend on), missing files are stamped as such.
+     * @return the stamp.
+     * @throws IOException if the stat data of some file cannot be read.
+     */
+    public static String stamp(List<String> configuration, List<Path> files) throws IOException {
+        final MessageDigest digest = Digests.sha256();
+        for (String value : configuration) {
+            Digests.update(digest, value);
+        }
+        Digests.update(digest, Integer.toString(files.size()));
+        for (Path file : files) {
+            Digests.update(digest, file.toFile().getAbsolutePath());
+            if (Files.exists(file)) {
+                final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                Digests.update(digest, attributes.size() + " " + attributes.lastModifiedTime().toMillis());
+            } else {
+                // e.g. a sourced file that has been deleted since
+                Digests.update(digest, "missing");
+            }
+        }
+        return Digests.hex(digest.digest());
+    }
+
+    /**
+     * @param stamp the stamp of the check about to be performed.
+     * @return true if the last check that found no problems had the same stamp.
+     */
+    public boolean isUpToDate(String stamp) {
+        return !savedStamp.isEmpty() && savedStamp.equals(stamp);
+    }
+
+    /**
+     * Records that a check found no problems.
+     *
+     * @param stamp the stamp of the check.
+     * @throws IOException if the manifest cannot be written.
+     */
+    public void save(String stamp) throws IOException {
+        final Path directory = manifestFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        final Path tmp = Paths.get(manifestFile.toAbsolutePath() + ".tmp");
+        Files.write(tmp, stamp.getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Forgets the last check, so that the next one is performed whatever the stamp.
+     *
+     * @throws IOException if the manifest cannot be deleted.
+     */
+    public void invalidate() throws IOException {
+        Files.deleteIfExists(manifestFile);
+    }
+}
@@ -0,0 +1,25 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+
+// Generates the synthetic repository described in budgets.properties.
+def budgets = new Properties()
+budgets.load(Files.newBufferedReader(Paths.get(basedir.getAbsolutePath(), "budgets.properties")))
+
+def scripts = budgets.getProperty("scripts") as int
+def scriptsPerDirectory = budgets.getProperty("scriptsPerDirectory") as int
+def dirtyEvery = budgets.getProperty("dirtyEvery") as int
+def diagnosticsPerDirtyScript = budgets.getProperty("diagnosticsPerDirtyScript") as int
+
+def srcMainSh = Paths.get(basedir.getAbsolutePath(), "src", "main", "sh")
+for (int i = 0; i < scripts; i++) {
+    def directory = Files.createDirectories(srcMainSh.resolve("dir" + (i.intdiv(scriptsPerDirectory))))
+    def lines = ["#!/bin/bash", "# synthetic script " + i, "name=\"script " + i + "\"", "echo \"\$name\" \"\$@\""]
+    if (i % dirtyEvery == 0) {
+        // every unquoted expansion is a SC2086
+        for (int d = 0; d < diagnosticsPerDirtyScript; d++) {
+            lines.add("echo \$" + (d % 9 + 1))
+        }
+    }
+    Files.write(directory.resolve("script" + i + ".sh"), lines)
+}
+return true
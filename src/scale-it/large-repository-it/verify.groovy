@@ -0,0 +1,73 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+import java.time.Duration
+import java.time.LocalTime
+
+def budgets = new Properties()
+budgets.load(Files.newBufferedReader(Paths.get(basedir.getAbsolutePath(), "budgets.properties")))
+def budget = { String key -> budgets.getProperty(key) as long }
+
+def buildLog = Files.readAllLines(Paths.get(basedir.getAbsolutePath(), "build.log"))
+assert !buildLog.any({ line -> line.contains("OutOfMemoryError") })
+
+// the wall time of each execution goes from its start to the start of whatever is logged next by maven itself
+def executionStart = ~/^(\d\d:\d\d:\d\d\.\d\d\d) \[INFO\] --- \S+ \((\S+)\) @ .*/
+def mavenLine = ~/^(\d\d:\d\d:\d\d\.\d\d\d) \[INFO\] (--- |BUILD |-{72}).*/
+def wallTimes = [:]
+String running = null
+LocalTime runningSince = null
+buildLog.each { line ->
+    def start = executionStart.matcher(line)
+    def other = mavenLine.matcher(line)
+    if (running != null && other.matches()) {
+        wallTimes[running] = Duration.between(runningSince, LocalTime.parse(other.group(1))).toMillis()
+        running = null
+    }
+    if (start.matches()) {
+        running = start.group(2)
+        runningSince = LocalTime.parse(start.group(1))
+    }
+}
+
+def pluginOutput = Paths.get(basedir.getAbsolutePath(), "target", "shellcheck-plugin")
+def stdoutsOf = { String executionId ->
+    Files.list(pluginOutput)
+        .filter({ path -> path.getFileName().toString().matches("shellcheck\\." + executionId + "\\.\\d+\\.stdout") })
+        .collect()
+}
+def scripts = budget("scripts")
+def expectedDiagnostics = ((scripts + budget("dirtyEvery") - 1).intdiv(budget("dirtyEvery"))) * budget("diagnosticsPerDirtyScript")
+
+// the peak heap of the whole jvm up to the end of the execution, as recorded in its metrics
+def peakHeapBytesOf = { String executionId ->
+    def metrics = new String(Files.readAllBytes(pluginOutput.resolve("shellcheck." + executionId + ".metrics.json")), "UTF-8")
+    def peakHeap = metrics =~ /"peakHeapBytes": (\d+)/
+    assert peakHeap.find()
+    peakHeap.group(1) as long
+}
+
+["sequential", "split", "parallel"].each { executionId ->
+    def stdouts = stdoutsOf(executionId)
+    def diagnostics = stdouts.sum(0L, { path -> Files.lines(path).filter({ line -> line.endsWith("[SC2086]") }).count() })
+    def peakHeapBytes = peakHeapBytesOf(executionId)
+    println "Execution [" + executionId + "]: [" + wallTimes[executionId] + "] millis, [" + stdouts.size() + "] processes, [" + diagnostics + "] diagnostics, " + "peak heap [" + peakHeapBytes.intdiv(1024 * 1024) + "] MiB"
+
+    assert wallTimes[executionId] != null
+    assert wallTimes[executionId] <= budget(executionId + ".maxSeconds") * 1000
+    assert diagnostics == expectedDiagnostics
+    assert peakHeapBytes <= budget("maxPeakHeapMegabytes") * 1024 * 1024
+}
+
+// checking in parallel pays off, whatever the machine is
+if (Runtime.getRuntime().availableProcessors() >= 4) {
+    assert wallTimes["parallel"] * 100 <= wallTimes["sequential"] * budget("parallel.maxPercentOfSequential")
+    assert wallTimes["parallel"] * 100 <= wallTimes["split"] * budget("parallel.maxPercentOfSplit")
+} else {
+    println "Not asserting the speedup of the parallel execution with [" + Runtime.getRuntime().availableProcessors() + "] processors"
+}
+
+assert stdoutsOf("sequential").size() <= budget("sequential.maxProcesses")
+assert stdoutsOf("split").size() == budget("split.processes")
+assert stdoutsOf("parallel").size() >= budget("parallel.minProcesses")
+assert stdoutsOf("parallel").size() <= budget("parallel.maxProcesses")
+return true
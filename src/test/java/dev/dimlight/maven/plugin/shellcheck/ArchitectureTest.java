@@ -48,4 +48,11 @@ public class ArchitectureTest {
             Assert.assertTrue("File [" + binary + "] is not a file", binary.isFile());
         }
     }
+
+    @Test
+    public void commandLineLimitsAreKnownWithoutAnEmbeddedBinary() {
+        // e.g. freebsd, with an external binary
+        Assert.assertTrue(Architecture.unsupported.maxArgumentsBytes() > 0);
+        Assert.assertTrue(Architecture.unsupported.argumentBytes("/a/file.sh") > 0);
+    }
 }
@@ -0,0 +1,78 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class BalancedChunksTest {
+
+    @Test
+    public void everyItemEndsUpInExactlyOneNonEmptyChunk() {
+        for (int chunkCount = 1; chunkCount < 12; ++chunkCount) {
+            for (int maxChunkSize = 1; maxChunkSize < 12; ++maxChunkSize) {
+                for (int listSize = 0; listSize < 60; ++listSize) {
+                    final List<Integer> items = IntStream.range(0, listSize).boxed().collect(Collectors.toList());
+                    final List<List<Integer>> chunks = BalancedChunks.split(items, item -> item % 7, chunkCount, maxChunkSize);
+
+                    final List<Integer> rejoined = new ArrayList<>();
+                    for (List<Integer> chunk : chunks) {
+                        Assert.assertFalse(chunk.isEmpty());
+                        Assert.assertTrue(chunk.size() <= maxChunkSize);
+                        Assert.assertEquals(chunk.stream().sorted().collect(Collectors.toList()), chunk);
+                        rejoined.addAll(chunk);
+                    }
+                    Collections.sort(rejoined);
+                    Assert.assertEquals(items, rejoined);
+                    Assert.assertTrue(chunks.size() >= Math.min(listSize, chunkCount));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void bigItemsAreSpreadAcrossChunks() {
+        // sequential chunking would put both the big items in the first chunk
+        final List<Long> costs = Arrays.asList(1000L, 1000L, 1L, 1L, 1L, 1L);
+        final List<List<Long>> chunks = BalancedChunks.split(costs, cost -> cost, 2, Integer.MAX_VALUE);
+
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals(Arrays.asList(1000L, 1L, 1L), chunks.get(0));
+        Assert.assertEquals(Arrays.asList(1000L, 1L, 1L), chunks.get(1));
+    }
+
+    @Test
+    public void chunksAreReproducible() {
+        final List<String> items = IntStream.range(0, 500).mapToObj(i -> "file" + i).collect(Collectors.toList());
+        final List<List<String>> first = BalancedChunks.split(items, item -> Math.floorMod(item.hashCode(), 13), 7, 100);
+        final List<List<String>> second = BalancedChunks.split(new ArrayList<>(items), item -> Math.floorMod(item.hashCode(), 13), 7, 100);
+        Assert.assertEquals(first, second);
+    }
+}
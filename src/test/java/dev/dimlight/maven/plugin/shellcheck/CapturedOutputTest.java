@@ -0,0 +1,106 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class CapturedOutputTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Path captured(String content) throws IOException {
+        final Path file = tmp.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void everythingIsEchoedWithinTheLimits() throws IOException {
+        final Path file = captured("first\r\nsecond\n\nlast, not terminated");
+        final List<String> lines = new ArrayList<>();
+
+        final long echoedBytes = CapturedOutput.echo(file, 0, 0, lines::add);
+
+        Assert.assertEquals(Arrays.asList("first", "second", "", "last, not terminated"), lines);
+        Assert.assertEquals(Files.size(file), echoedBytes);
+    }
+
+    @Test
+    public void echoStopsAtTheLinesLimit() throws IOException {
+        final Path file = captured("1\n2\n3\n4\n");
+        final List<String> lines = new ArrayList<>();
+
+        final long echoedBytes = CapturedOutput.echo(file, 2, 0, lines::add);
+
+        Assert.assertEquals(Arrays.asList("1", "2"), lines);
+        Assert.assertEquals(4, echoedBytes);
+    }
+
+    @Test
+    public void echoStopsAtTheBytesLimitEvenWithinALine() throws IOException {
+        final char[] longLine = new char[100_000];
+        Arrays.fill(longLine, 'x');
+        final Path file = captured("short\n" + new String(longLine) + "\n");
+        final List<String> lines = new ArrayList<>();
+
+        final long echoedBytes = CapturedOutput.echo(file, 0, 16, lines::add);
+
+        Assert.assertEquals(Arrays.asList("short", "xxxxxxxxxx"), lines);
+        Assert.assertEquals(16, echoedBytes);
+    }
+
+    @Test
+    public void echoStopsAtTheBytesLimitOnACharacterBoundary() throws IOException {
+        // "è" and "€" take 2 and 3 bytes in UTF-8
+        final Path file = captured("aè€\n");
+        final List<String> lines = new ArrayList<>();
+
+        Assert.assertEquals(6, CapturedOutput.echo(file, 0, 6, lines::add));
+        Assert.assertEquals(3, CapturedOutput.echo(file, 0, 5, lines::add));
+        Assert.assertEquals(3, CapturedOutput.echo(file, 0, 3, lines::add));
+        Assert.assertEquals(1, CapturedOutput.echo(file, 0, 2, lines::add));
+        Assert.assertEquals(Arrays.asList("aè€", "aè", "aè", "a"), lines);
+    }
+
+    @Test
+    public void emptyOutputEchoesNothing() throws IOException {
+        final List<String> lines = new ArrayList<>();
+
+        Assert.assertEquals(0, CapturedOutput.echo(captured(""), 10, 10, lines::add));
+        Assert.assertEquals(Collections.emptyList(), lines);
+    }
+}
@@ -25,6 +25,7 @@ package dev.dimlight.maven.plugin.shellcheck;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -44,6 +45,30 @@ public class ChunkIteratorTest {
         }
     }
 
+    @Test
+    public void testWeightedChunking() {
+        for (long maxWeight = 1; maxWeight < 60; ++maxWeight) {
+            for (int listSize = 0; listSize < 100; ++listSize) {
+                assertCorrectWeightedChunking(listSize, maxWeight);
+            }
+        }
+    }
+
+    private void assertCorrectWeightedChunking(int listSize, long maxWeight) {
+        // weights go from 0 to 20, so that some items are heavier than a whole chunk
+        final List<Integer> items = IntStream.range(0, listSize).boxed().collect(Collectors.toList());
+        final Iterator<List<Integer>> iter = ChunkIterator.over(maxWeight, item -> item % 21, items);
+        final List<Integer> rejoined = new ArrayList<>();
+        while (iter.hasNext()) {
+            final List<Integer> chunk = iter.next();
+            final long weight = chunk.stream().mapToLong(item -> item % 21).sum();
+            Assert.assertFalse(chunk.isEmpty());
+            Assert.assertTrue(chunk.size() == 1 || weight <= maxWeight);
+            rejoined.addAll(chunk);
+        }
+        Assert.assertEquals(items, rejoined);
+    }
+
     private void assertCorrectChunking(int listSize, int chunkSize) {
         final List<Integer> items = IntStream.range(0, listSize).boxed().collect(Collectors.toList());
         final Iterator<List<Integer>> iter = ChunkIterator.over(chunkSize, items);
@@ -0,0 +1,85 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DuplicateFilesTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void filesWithTheSameFingerprintAndExtensionAreGrouped() {
+        final Path root = tmp.getRoot().toPath();
+        final Path a = root.resolve("a.sh");
+        final Path b = root.resolve("b.sh");
+        final Path c = root.resolve("c.bash");
+        final Path d = root.resolve("d.sh");
+
+        final DuplicateFiles duplicates = DuplicateFiles.group(Arrays.asList(a, b, c, d),
+            file -> file.equals(d) ? "other" : "same");
+
+        Assert.assertEquals(Arrays.asList(a, c, d), duplicates.representatives());
+        Assert.assertEquals(Collections.singletonList(b), duplicates.duplicatesOf(a));
+        Assert.assertEquals(Collections.emptyList(), duplicates.duplicatesOf(c));
+        Assert.assertEquals(1, duplicates.duplicatesCount());
+    }
+
+    @Test
+    public void filesUnderDifferentShellcheckrcAreNotGrouped() throws IOException {
+        final Path root = tmp.getRoot().toPath();
+        final Path configured = Files.createDirectories(root.resolve("configured/sub"));
+        Files.write(root.resolve("configured/.shellcheckrc"), Collections.singletonList("disable=SC2034"));
+        final Path plain = Files.createDirectories(root.resolve("plain"));
+        final List<Path> files = Arrays.asList(plain.resolve("a.sh"), configured.resolve("a.sh"),
+            root.resolve("configured/b.sh"), plain.resolve("b.sh"));
+
+        final DuplicateFiles duplicates = DuplicateFiles.group(files, file -> "same");
+
+        Assert.assertEquals(Arrays.asList(files.get(0), files.get(1)), duplicates.representatives());
+        Assert.assertEquals(Collections.singletonList(files.get(3)), duplicates.duplicatesOf(files.get(0)));
+        Assert.assertEquals(Collections.singletonList(files.get(2)), duplicates.duplicatesOf(files.get(1)));
+    }
+
+    @Test
+    public void noneKeepsEveryFile() {
+        final List<Path> files = Arrays.asList(tmp.getRoot().toPath().resolve("a.sh"), tmp.getRoot().toPath().resolve("b.sh"));
+
+        final DuplicateFiles duplicates = DuplicateFiles.none(files);
+
+        Assert.assertEquals(files, duplicates.representatives());
+        Assert.assertEquals(0, duplicates.duplicatesCount());
+    }
+}
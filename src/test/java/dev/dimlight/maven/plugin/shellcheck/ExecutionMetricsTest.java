@@ -0,0 +1,94 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ExecutionMetricsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void metricsAreSavedAsJson() throws IOException {
+        final Path stdout = tmp.getRoot().toPath().resolve("run.stdout");
+        Files.write(stdout, "0123456789".getBytes(StandardCharsets.UTF_8));
+        final Path stderr = tmp.getRoot().toPath().resolve("missing.stderr");
+        final Shellcheck.Result result = new Shellcheck.Result("exec\"1\".0", Collections.emptyList(), 1, stdout, stderr,
+            Collections.singletonMap(Severity.warning, 2L), 300, 20, ProcessUsage.UNKNOWN, false);
+
+        final ExecutionMetrics metrics = new ExecutionMetrics("exec\"1\"");
+        final long now = metrics.phase("discovery", System.nanoTime());
+        metrics.phase("checking", now);
+        metrics.count("filesDiscovered", 12);
+        metrics.run("1", 5, 7, result);
+        metrics.run("0", 7, 0, result);
+        final Path metricsFile = tmp.getRoot().toPath().resolve("out").resolve("metrics.json");
+        metrics.save(metricsFile);
+
+        final String json = new String(Files.readAllBytes(metricsFile), StandardCharsets.UTF_8);
+        Assert.assertTrue(json, json.matches("(?s)\\{\"executionId\": \"exec\\\\\"1\\\\\"\", \"totalMillis\": \\d+, \"peakHeapBytes\": [1-9]\\d*,.*"));
+        Assert.assertTrue(json, json.matches("(?s).*\"phases\": \\{\"discovery\": \\d+, \"checking\": \\d+}.*"));
+        Assert.assertTrue(json, json.contains("\"counts\": {\"filesDiscovered\": 12}"));
+        Assert.assertTrue(json, json.contains("\"runs\": [{\"run\": \"0\", \"files\": 7, \"waitMillis\": 0"));
+        Assert.assertTrue(json, json.contains("{\"run\": \"1\", \"files\": 5, \"waitMillis\": 7, \"spawnMillis\": 20, \"analysisMillis\": 280, "
+            + "\"exitCode\": 1, \"stdoutBytes\": 10, \"stderrBytes\": 0, \"diagnostics\": 2, "
+            + "\"userCpuMillis\": -1, \"systemCpuMillis\": -1, \"peakRssBytes\": -1}]}"));
+
+        Assert.assertTrue(metrics.summary(), metrics.summary().contains("2 runs, filesDiscovered [12]"));
+    }
+
+    @Test
+    public void processUsageIsSummedUpAcrossRuns() throws IOException {
+        final Path stdout = tmp.getRoot().toPath().resolve("run.stdout");
+        final ExecutionMetrics metrics = new ExecutionMetrics("default");
+        metrics.run("0", 1, 0, new Shellcheck.Result("default.0", Collections.emptyList(), 0, stdout, stdout,
+            Collections.emptyMap(), 100, 1, new ProcessUsage(80, 10, 20 * 1024 * 1024), false));
+        metrics.run("1", 1, 0, new Shellcheck.Result("default.1", Collections.emptyList(), 0, stdout, stdout,
+            Collections.emptyMap(), 100, 1, new ProcessUsage(70, 5, 30 * 1024 * 1024), false));
+        metrics.run("2", 1, 0, new Shellcheck.Result("default.2", Collections.emptyList(), 0, stdout, stdout,
+            Collections.emptyMap(), 100, 1, ProcessUsage.UNKNOWN, false));
+
+        Assert.assertTrue(metrics.summary(), metrics.summary().contains("3 runs (cpu user [150] sys [15] millis, max peak rss [30] MiB)"));
+    }
+
+    @Test
+    public void runsAreOrderedByRunNumber() {
+        final List<String> runNumbers = new ArrayList<>(Arrays.asList("10", "2.1", "2", "2.0.1", "1", "2.0"));
+        runNumbers.sort(ExecutionMetrics::compareRunNumbers);
+        Assert.assertEquals(Arrays.asList("1", "2", "2.0", "2.0.1", "2.1", "10"), runNumbers);
+    }
+}
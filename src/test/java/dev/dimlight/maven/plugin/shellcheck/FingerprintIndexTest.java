@@ -0,0 +1,119 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class FingerprintIndexTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void fingerprintsSurviveSaveAndLoad() throws IOException {
+        final Path indexFile = tmp.getRoot().toPath().resolve("sub").resolve("index");
+        final Path script = write("a.sh", "echo $1");
+
+        final FingerprintIndex index = FingerprintIndex.load(indexFile);
+        final String fingerprint = FingerprintIndex.fileFingerprint("tool", script);
+        Assert.assertFalse(index.isUpToDate(script, fingerprint));
+
+        index.put(script, fingerprint);
+        index.save();
+
+        final FingerprintIndex reloaded = FingerprintIndex.load(indexFile);
+        Assert.assertTrue(reloaded.isUpToDate(script, fingerprint));
+    }
+
+    @Test
+    public void fingerprintChangesWithContentAndTool() throws IOException {
+        final Path script = write("a.sh", "echo $1");
+        final String before = FingerprintIndex.fileFingerprint("tool", script);
+
+        Assert.assertEquals(before, FingerprintIndex.fileFingerprint("tool", script));
+        Assert.assertNotEquals(before, FingerprintIndex.fileFingerprint("another-tool", script));
+
+        write("a.sh", "echo \"$1\"");
+        Assert.assertNotEquals(before, FingerprintIndex.fileFingerprint("tool", script));
+    }
+
+    @Test
+    public void binariesAreHashedOnlyWhenTheyChange() throws IOException {
+        final Path binary = write("shellcheck", "binary-1");
+        final FileTime modified = FileTime.fromMillis(1_600_000_000_000L);
+        Files.setLastModifiedTime(binary, modified);
+        final String before = FingerprintIndex.toolFingerprint(binary, Collections.singletonList("-x"), "");
+
+        Assert.assertNotEquals(before, FingerprintIndex.toolFingerprint(binary, Collections.singletonList("-a"), ""));
+
+        // same size and modification time: taken for the same binary, not read again
+        write("shellcheck", "binary-2");
+        Files.setLastModifiedTime(binary, modified);
+        Assert.assertEquals(before, FingerprintIndex.toolFingerprint(binary, Collections.singletonList("-x"), ""));
+
+        Files.setLastModifiedTime(binary, FileTime.fromMillis(modified.toMillis() + 1000));
+        Assert.assertNotEquals(before, FingerprintIndex.toolFingerprint(binary, Collections.singletonList("-x"), ""));
+    }
+
+    @Test
+    public void environmentOptionsArePartOfTheToolFingerprint() throws IOException {
+        final Path binary = write("shellcheck", "binary");
+        final String before = FingerprintIndex.toolFingerprint(binary, Collections.singletonList("-x"), "");
+
+        Assert.assertEquals(before, FingerprintIndex.toolFingerprint(binary, Collections.singletonList("-x"), ""));
+        Assert.assertNotEquals(before, FingerprintIndex.toolFingerprint(binary, Collections.singletonList("-x"), "--severity=error"));
+    }
+
+    @Test
+    public void removedAndVanishedFilesAreForgotten() throws IOException {
+        final Path a = write("a.sh", "echo a");
+        final Path b = write("b.sh", "echo b");
+        final Path c = write("c.sh", "echo c");
+
+        final FingerprintIndex index = FingerprintIndex.load(tmp.getRoot().toPath().resolve("index"));
+        for (Path path : Arrays.asList(a, b, c)) {
+            index.put(path, "fp-" + path.getFileName());
+        }
+        index.remove(a);
+        index.retainAll(Collections.singletonList(b));
+
+        Assert.assertFalse(index.isUpToDate(a, "fp-a.sh"));
+        Assert.assertTrue(index.isUpToDate(b, "fp-b.sh"));
+        Assert.assertFalse(index.isUpToDate(c, "fp-c.sh"));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(tmp.getRoot().toPath().resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
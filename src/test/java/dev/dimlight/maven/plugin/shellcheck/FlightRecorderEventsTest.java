@@ -0,0 +1,110 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class FlightRecorderEventsTest {
+
+    private static final String INVOCATION_EVENT = "dev.dimlight.shellcheck.Invocation";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Path binary;
+    private Path script;
+
+    @Before
+    public void fakeShellcheck() throws IOException {
+        Assume.assumeFalse("needs java 11+", System.getProperty("java.specification.version").startsWith("1."));
+        Assume.assumeTrue("needs a posix shell", Files.isExecutable(Paths.get("/bin/sh")));
+        binary = tmp.getRoot().toPath().resolve("shellcheck");
+        Files.write(binary, "#!/bin/sh\necho 0123456789\nexit 1\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(binary.toFile().setExecutable(true));
+        script = tmp.newFile("script.sh").toPath();
+    }
+
+    @Test
+    public void invocationsAreRecorded() throws IOException, InterruptedException {
+        final Path dump = tmp.getRoot().toPath().resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(INVOCATION_EVENT);
+            recording.start();
+            Shellcheck.run("default.3", binary, Collections.emptyList(), Collections.singletonList(script),
+                tmp.getRoot().toPath().resolve("stdout"), tmp.getRoot().toPath().resolve("stderr"), false, 0, false);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        final List<RecordedEvent> invocations = RecordingFile.readAllEvents(dump).stream()
+            .filter(event -> event.getEventType().getName().equals(INVOCATION_EVENT))
+            .collect(Collectors.toList());
+        Assert.assertEquals(1, invocations.size());
+        final RecordedEvent invocation = invocations.get(0);
+        Assert.assertEquals("default.3", invocation.getString("runId"));
+        Assert.assertEquals(1, invocation.getInt("files"));
+        Assert.assertEquals(1, invocation.getInt("exitCode"));
+        Assert.assertEquals(11, invocation.getLong("stdoutBytes"));
+        Assert.assertEquals(0, invocation.getLong("stderrBytes"));
+        Assert.assertFalse(invocation.getDuration().isNegative());
+    }
+
+    @Test
+    public void disabledInvocationsAreNotRecordedAndKeepNothing() throws IOException, InterruptedException {
+        final Path dump = tmp.getRoot().toPath().resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.disable(INVOCATION_EVENT);
+            recording.start();
+            Shellcheck.run("default.0", binary, Collections.emptyList(), Collections.singletonList(script),
+                tmp.getRoot().toPath().resolve("stdout"), tmp.getRoot().toPath().resolve("stderr"), false, 0, false);
+            // with the event disabled nothing of the invocation is kept: every one ends in the same stateless no-op,
+            // which does not even look at the captured output
+            final FlightRecorderEvents.Invocation invocation = FlightRecorderEvents.invocation("default.1", 1);
+            Assert.assertSame(invocation, FlightRecorderEvents.invocation("default.2", 2));
+            invocation.end(0, Paths.get("no-such-stdout"), Paths.get("no-such-stderr"));
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        Assert.assertTrue(RecordingFile.readAllEvents(dump).stream()
+            .noneMatch(event -> event.getEventType().getName().equals(INVOCATION_EVENT)));
+    }
+}
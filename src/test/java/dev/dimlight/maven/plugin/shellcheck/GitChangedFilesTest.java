@@ -0,0 +1,117 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class GitChangedFilesTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void changedFilesAreTheOnesDifferingFromTheMergeBase() throws IOException, InterruptedException {
+        final Path repo = tmp.getRoot().toPath();
+        Assume.assumeTrue("git is needed", git(repo, "init", "-q") == 0);
+        git(repo, "config", "user.email", "test@example.com");
+        git(repo, "config", "user.name", "test");
+
+        final Path unchanged = write(repo.resolve("unchanged.sh"), "echo 1");
+        final Path committed = write(repo.resolve("committed.sh"), "echo 2");
+        final Path deleted = write(repo.resolve("deleted.sh"), "echo 3");
+        git(repo, "add", ".");
+        git(repo, "commit", "-q", "-m", "base");
+        git(repo, "tag", "base");
+
+        write(committed, "echo 22");
+        git(repo, "rm", "-q", deleted.getFileName().toString());
+        git(repo, "commit", "-q", "-a", "-m", "change");
+        final Path untracked = write(repo.resolve("sub").resolve("untracked.sh"), "echo 4");
+
+        final Set<Path> changed = GitChangedFiles.since(repo.resolve("sub"), "base");
+        Assert.assertEquals(2, changed.size());
+
+        final List<Path> retained = GitChangedFiles.retainChanged(Arrays.asList(committed, untracked, unchanged), changed);
+        Assert.assertEquals(Arrays.asList(committed, untracked), retained);
+    }
+
+    @Test
+    public void gitWarningsAreNotTakenForFiles() throws IOException, InterruptedException {
+        final Path repo = tmp.getRoot().toPath();
+        Assume.assumeTrue("git is needed", git(repo, "init", "-q") == 0);
+        git(repo, "config", "user.email", "test@example.com");
+        git(repo, "config", "user.name", "test");
+        final Path script = write(repo.resolve("script.sh"), "echo 1\n");
+        git(repo, "add", ".");
+        git(repo, "commit", "-q", "-m", "base");
+        git(repo, "tag", "base");
+
+        // git warns (on stderr) that the line endings of the changed file will be converted
+        git(repo, "config", "core.autocrlf", "true");
+        write(script, "echo 2\n");
+
+        Assert.assertEquals(Collections.singleton(script.toRealPath()), GitChangedFiles.since(repo, "base"));
+    }
+
+    @Test
+    public void unknownRefsFail() throws IOException, InterruptedException {
+        final Path repo = tmp.getRoot().toPath();
+        Assume.assumeTrue("git is needed", git(repo, "init", "-q") == 0);
+        try {
+            GitChangedFiles.retainChanged(Collections.emptyList(), GitChangedFiles.since(repo, "no-such-ref"));
+            Assert.fail("unknown refs should fail");
+        } catch (IOException e) {
+            // what git said is in the message
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("no-such-ref"));
+        }
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int git(Path workDir, String... args) throws InterruptedException {
+        final String[] cmdLine = new String[args.length + 1];
+        cmdLine[0] = "git";
+        System.arraycopy(args, 0, cmdLine, 1, args.length);
+        try {
+            return new ProcessBuilder(cmdLine).directory(workDir.toFile()).inheritIO().start().waitFor();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Json1ParserTest {
+
+    @Test
+    public void parsesShellcheckOutput() throws IOException {
+        final String output = "{\"comments\":[" +
+            "{\"file\":\"/tmp/a.sh\",\"line\":3,\"endLine\":3,\"column\":6,\"endColumn\":8,\"level\":\"info\"," +
+            "\"code\":2086,\"message\":\"Double quote to prevent globbing and word splitting.\"," +
+            "\"fix\":{\"replacements\":[{\"column\":6,\"endColumn\":6,\"insertionPoint\":\"afterEnd\",\"line\":3," +
+            "\"precedence\":7,\"replacement\":\"\\\"\"}]}}," +
+            " {\"file\":\"/tmp/b \\\"quoted\\\".sh\",\"line\":1,\"column\":1,\"level\":\"error\",\"code\":1073," +
+            "\"message\":\"Couldn't parse \\u0027this\\u0027\\n\",\"fix\":null}" +
+            "]}\n";
+
+        final List<Diagnostic> diagnostics = parse(output);
+
+        Assert.assertEquals(2, diagnostics.size());
+        Assert.assertEquals("/tmp/a.sh:3:6: info: Double quote to prevent globbing and word splitting. [SC2086]",
+            diagnostics.get(0).toString());
+        Assert.assertEquals(Severity.error, diagnostics.get(1).level);
+        Assert.assertEquals("/tmp/b \"quoted\".sh", diagnostics.get(1).file.toString());
+        Assert.assertEquals("Couldn't parse 'this'\n", diagnostics.get(1).message);
+    }
+
+    @Test
+    public void parsesEmptyOutputs() throws IOException {
+        Assert.assertTrue(parse("").isEmpty());
+        Assert.assertTrue(parse("{}").isEmpty());
+        Assert.assertTrue(parse("{\"comments\":[]}").isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedOutput() throws IOException {
+        parse("{\"comments\":[{\"file\":\"a.sh\",\"line\":3");
+    }
+
+    private static List<Diagnostic> parse(String output) throws IOException {
+        final List<Diagnostic> diagnostics = new ArrayList<>();
+        Json1Parser.parse(new StringReader(output), diagnostics::add);
+        return diagnostics;
+    }
+}
@@ -0,0 +1,101 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ProcessUsageTest {
+
+    @Test
+    public void cpuTimesAndPeakRssAreParsed() {
+        final String stat = "4242 (shell check) x) S 1 4242 4242 0 -1 4194304 1200 0 0 0 37 4 0 0 20 0 1 0 1000 52428800 2000";
+        final ProcessUsage usage = ProcessUsage.parse(stat, Arrays.asList(
+            "Name:\tshellcheck",
+            "VmPeak:\t  120000 kB",
+            "VmHWM:\t   51200 kB",
+            "VmRSS:\t   40000 kB"));
+
+        Assert.assertTrue(usage.isKnown());
+        Assert.assertEquals(370, usage.userCpuMillis);
+        Assert.assertEquals(40, usage.systemCpuMillis);
+        Assert.assertEquals(51200L * 1024, usage.peakRssBytes);
+    }
+
+    @Test
+    public void zombiesHaveCpuTimesButNoPeakRss() {
+        final ProcessUsage usage = ProcessUsage.parse("4242 (shellcheck) Z 1 4242 4242 0 -1 4227084 1200 0 0 0 37 4 0 0 20 0 1 0 1000 0 0",
+            Collections.singletonList("Name:\tshellcheck"));
+
+        Assert.assertTrue(usage.isKnown());
+        Assert.assertEquals(370, usage.userCpuMillis);
+        Assert.assertEquals(-1, usage.peakRssBytes);
+    }
+
+    @Test
+    public void runningProcessesAreSampled() throws IOException, InterruptedException {
+        Assume.assumeTrue("needs /proc", Files.isDirectory(Paths.get("/proc/self")));
+        final Process process = new ProcessBuilder("sleep", "1").start();
+        final ProcessUsage.Sampling sampling = ProcessUsage.sample(process);
+        process.waitFor();
+        final ProcessUsage usage = sampling.stop();
+
+        Assert.assertTrue(usage.isKnown());
+        Assert.assertTrue(usage.userCpuMillis >= 0);
+        Assert.assertTrue(usage.systemCpuMillis >= 0);
+        Assert.assertTrue(usage.peakRssBytes > 0);
+    }
+
+    @Test
+    public void samplingStopsOnceTheProcessHasExited() throws IOException, InterruptedException {
+        Assume.assumeTrue("needs /proc", Files.isDirectory(Paths.get("/proc/self")));
+        final Process process = new ProcessBuilder("sleep", "0.2").start();
+        final ProcessUsage.Sampling sampling = ProcessUsage.sample(process);
+        Assert.assertTrue(sampling.isSampling());
+        process.waitFor();
+        Thread.sleep(5 * ProcessUsage.SAMPLING_INTERVAL_MILLIS);
+
+        // whatever runs with the same pid later on is not sampled
+        Assert.assertFalse(sampling.isSampling());
+        Assert.assertTrue(sampling.stop().isKnown());
+    }
+
+    @Test
+    public void theStartTimeIdentifiesTheProcess() {
+        Assert.assertEquals(1000, ProcessUsage.startTime("4242 (shell check) x) S 1 4242 4242 0 -1 4194304 1200 0 0 0 37 4 0 0 20 0 1 0 1000 52428800 2000"));
+        Assert.assertEquals(-1, ProcessUsage.startTime("4242 (shellcheck) S 1"));
+    }
+
+    @Test
+    public void nothingIsSampledUnlessAsked() {
+        Assert.assertFalse(ProcessUsage.none().stop().isKnown());
+    }
+}
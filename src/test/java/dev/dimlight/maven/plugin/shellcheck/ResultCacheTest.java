@@ -0,0 +1,125 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+public class ResultCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void hitsAreReportedOnTheRequestingFile() throws IOException {
+        final Path cacheFile = tmp.getRoot().toPath().resolve("cache");
+        final ResultCache cache = ResultCache.load(cacheFile, 10, Long.MAX_VALUE, new SystemStreamLog());
+        cache.put("key", Collections.singletonList(diagnostic("original.sh")));
+        cache.put("clean", Collections.emptyList());
+        cache.save();
+
+        final ResultCache reloaded = ResultCache.load(cacheFile, 10, Long.MAX_VALUE, new SystemStreamLog());
+        final Optional<List<Diagnostic>> hit = reloaded.get("key", Paths.get("copy.sh"));
+        Assert.assertTrue(hit.isPresent());
+        Assert.assertEquals("copy.sh:2:5: warning: some message [SC2034]", hit.get().get(0).toString());
+        Assert.assertEquals(Optional.of(Collections.emptyList()), reloaded.get("clean", Paths.get("clean.sh")));
+        Assert.assertFalse(reloaded.get("missing", Paths.get("missing.sh")).isPresent());
+        Assert.assertEquals(2, reloaded.hits());
+        Assert.assertEquals(1, reloaded.misses());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() throws IOException {
+        final Path cacheFile = tmp.getRoot().toPath().resolve("cache");
+        final ResultCache cache = ResultCache.load(cacheFile, 2, Long.MAX_VALUE, new SystemStreamLog());
+        cache.put("a", Collections.emptyList());
+        cache.put("b", Collections.emptyList());
+        cache.get("a", Paths.get("a.sh"));
+        cache.put("c", Collections.emptyList());
+        cache.save();
+
+        final ResultCache reloaded = ResultCache.load(cacheFile, 2, Long.MAX_VALUE, new SystemStreamLog());
+        Assert.assertEquals(2, reloaded.size());
+        Assert.assertTrue(reloaded.get("a", Paths.get("a.sh")).isPresent());
+        Assert.assertFalse(reloaded.get("b", Paths.get("b.sh")).isPresent());
+        Assert.assertTrue(reloaded.get("c", Paths.get("c.sh")).isPresent());
+    }
+
+    @Test
+    public void cacheIsBoundedInBytes() throws IOException {
+        final ResultCache cache = ResultCache.load(tmp.getRoot().toPath().resolve("cache"), Integer.MAX_VALUE, 1024, new SystemStreamLog());
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key" + i, Collections.singletonList(diagnostic("file.sh")));
+        }
+        Assert.assertTrue(cache.size() < 20);
+        Assert.assertTrue(cache.get("key999", Paths.get("file.sh")).isPresent());
+    }
+
+    @Test
+    public void unreadableCachesAreDiscarded() throws IOException {
+        final Path cacheFile = tmp.getRoot().toPath().resolve("cache");
+        final ResultCache cache = ResultCache.load(cacheFile, 10, Long.MAX_VALUE, new SystemStreamLog());
+        cache.put("key", Collections.singletonList(diagnostic("original.sh")));
+        cache.save();
+
+        // truncated
+        final byte[] content = Files.readAllBytes(cacheFile);
+        Files.write(cacheFile, Arrays.copyOf(content, content.length - 3));
+        Assert.assertEquals(0, ResultCache.load(cacheFile, 10, Long.MAX_VALUE, new SystemStreamLog()).size());
+
+        // an invalid severity
+        content[content.length - "some message".length() - 2 - 4 - 1] = 42;
+        Files.write(cacheFile, content);
+        Assert.assertEquals(0, ResultCache.load(cacheFile, 10, Long.MAX_VALUE, new SystemStreamLog()).size());
+    }
+
+    @Test
+    public void hugeMessagesAreTruncated() throws IOException {
+        final Path cacheFile = tmp.getRoot().toPath().resolve("cache");
+        final char[] hugeMessage = new char[100_000];
+        Arrays.fill(hugeMessage, '\u20ac');
+        final ResultCache cache = ResultCache.load(cacheFile, 10, Long.MAX_VALUE, new SystemStreamLog());
+        cache.put("key", Collections.singletonList(new Diagnostic(Paths.get("a.sh"), 1, 1, Severity.error, 1000, new String(hugeMessage))));
+        cache.save();
+
+        final Optional<List<Diagnostic>> hit = ResultCache.load(cacheFile, 10, Long.MAX_VALUE, new SystemStreamLog()).get("key", Paths.get("a.sh"));
+        Assert.assertTrue(hit.isPresent());
+        Assert.assertTrue(hit.get().get(0).message.length() < hugeMessage.length);
+    }
+
+    private static Diagnostic diagnostic(String file) {
+        return new Diagnostic(Paths.get(file), 2, 5, Severity.warning, 2034, "some message");
+    }
+}
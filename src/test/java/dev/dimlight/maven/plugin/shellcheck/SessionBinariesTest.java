@@ -0,0 +1,89 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SessionBinariesTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void binariesAreResolvedOncePerSessionAndKey() throws Exception {
+        final Path binary = tmp.newFile("shellcheck").toPath();
+        final AtomicInteger resolutions = new AtomicInteger();
+        final SessionBinaries.Resolution resolution = () -> {
+            resolutions.incrementAndGet();
+            return binary;
+        };
+        final Object session = new Object();
+
+        Assert.assertEquals(binary, SessionBinaries.resolve(session, "key", resolution));
+        Assert.assertEquals(binary, SessionBinaries.resolve(session, "key", resolution));
+        Assert.assertEquals(1, resolutions.get());
+
+        SessionBinaries.resolve(session, "other-key", resolution);
+        SessionBinaries.resolve(new Object(), "key", resolution);
+        Assert.assertEquals(3, resolutions.get());
+
+        // a binary that is gone is resolved again
+        Files.delete(binary);
+        SessionBinaries.resolve(session, "key", resolution);
+        Assert.assertEquals(4, resolutions.get());
+    }
+
+    @Test
+    public void failedResolutionsAreNotRemembered() throws Exception {
+        final Path binary = tmp.newFile("shellcheck").toPath();
+        final Object session = new Object();
+        try {
+            SessionBinaries.resolve(session, "key", () -> {
+                throw new IOException("download failed");
+            });
+            Assert.fail("the resolution failure should be rethrown");
+        } catch (IOException e) {
+            Assert.assertEquals("download failed", e.getMessage());
+        }
+
+        Assert.assertEquals(binary, SessionBinaries.resolve(session, "key", () -> binary));
+
+        try {
+            SessionBinaries.resolve(new Object(), "key", () -> {
+                throw new MojoExecutionException("no binary");
+            });
+            Assert.fail("the resolution failure should be rethrown");
+        } catch (MojoExecutionException e) {
+            Assert.assertEquals("no binary", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public class ShebangsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static Optional<String> shellOf(String header) {
+        final byte[] bytes = header.getBytes(StandardCharsets.ISO_8859_1);
+        return Shebangs.shellOf(bytes, bytes.length);
+    }
+
+    @Test
+    public void shellShebangsAreRecognized() {
+        Assert.assertEquals(Optional.of("bash"), shellOf("#!/bin/bash\necho hi\n"));
+        Assert.assertEquals(Optional.of("sh"), shellOf("#! /bin/sh -e\r\n"));
+        Assert.assertEquals(Optional.of("bash"), shellOf("#!/usr/bin/env bash"));
+        Assert.assertEquals(Optional.of("dash"), shellOf("#!/usr/bin/env -S LANG=C dash -x\n"));
+        Assert.assertEquals(Optional.of("ksh93"), shellOf("#!/usr/local/bin/ksh93\n"));
+        Assert.assertEquals(Optional.of("sh"), shellOf("#!/bin/busybox sh\n"));
+    }
+
+    @Test
+    public void otherFilesAreNotShellScripts() {
+        Assert.assertEquals(Optional.empty(), shellOf("#!/usr/bin/env python3\n"));
+        Assert.assertEquals(Optional.empty(), shellOf("#!/bin/zsh\n"));
+        Assert.assertEquals(Optional.empty(), shellOf("echo no shebang\n"));
+        Assert.assertEquals(Optional.empty(), shellOf("#!"));
+        Assert.assertEquals(Optional.empty(), shellOf("#!/usr/bin/env\n"));
+        Assert.assertEquals(Optional.empty(), shellOf("#!/bin/sh\n\u0000\u0001binary"));
+    }
+
+    @Test
+    public void onlyTheHeaderIsRead() throws IOException {
+        final Path script = tmp.newFile("script").toPath();
+        final StringBuilder content = new StringBuilder("#!/bin/bash\n");
+        while (content.length() < Shebangs.HEADER_BYTES) {
+            content.append("echo hi\n");
+        }
+        // a NUL past the header does not make the file binary, because it is never read
+        content.append('\u0000');
+        Files.write(script, content.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+        Assert.assertTrue(Shebangs.isShellScript(script));
+        Assert.assertFalse(Shebangs.isShellScript(tmp.getRoot().toPath().resolve("missing")));
+    }
+}
@@ -0,0 +1,106 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ShellcheckTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void runsTakingTooLongAreKilledWithTheirChildren() throws IOException, InterruptedException {
+        Assume.assumeTrue("needs a posix shell", Files.isExecutable(Paths.get("/bin/sh")));
+        // the child sleep keeps stdout open: unless it gets killed too, parsing the output never ends
+        final Path binary = tmp.getRoot().toPath().resolve("shellcheck");
+        Files.write(binary, "#!/bin/sh\nsleep 60\necho done\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(binary.toFile().setExecutable(true));
+        final Path script = tmp.newFile("script.sh").toPath();
+
+        final long start = System.nanoTime();
+        final Shellcheck.Result result = Shellcheck.run("test.0", binary, Collections.emptyList(), Collections.singletonList(script),
+            tmp.getRoot().toPath().resolve("stdout"), tmp.getRoot().toPath().resolve("stderr"), true, 200, false);
+
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 30);
+        Assert.assertTrue(result.timedOut);
+        Assert.assertFalse(result.isComplete());
+        Assert.assertTrue(result.isNotOk());
+    }
+
+    @Test
+    public void runsWithinTheTimeoutAreNotKilled() throws IOException, InterruptedException {
+        Assume.assumeTrue("needs a posix shell", Files.isExecutable(Paths.get("/bin/sh")));
+        final Path binary = tmp.getRoot().toPath().resolve("shellcheck");
+        Files.write(binary, "#!/bin/sh\nexit 1\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(binary.toFile().setExecutable(true));
+        final Path script = tmp.newFile("script.sh").toPath();
+
+        final Shellcheck.Result result = Shellcheck.run("test.0", binary, Collections.emptyList(), Collections.singletonList(script),
+            tmp.getRoot().toPath().resolve("stdout"), tmp.getRoot().toPath().resolve("stderr"), false, 30_000, false);
+
+        Assert.assertFalse(result.timedOut);
+        Assert.assertTrue(result.isComplete());
+        Assert.assertEquals(1, result.exitCode);
+    }
+
+    @Test
+    public void onlyDiagnosticCountsAreKeptAndDiagnosticsAreReadBack() throws IOException, InterruptedException {
+        Assume.assumeTrue("needs a posix shell", Files.isExecutable(Paths.get("/bin/sh")));
+        final Path binary = tmp.getRoot().toPath().resolve("shellcheck");
+        Files.write(binary, ("#!/bin/sh\necho '{\"comments\":["
+            + "{\"file\":\"a.sh\",\"line\":1,\"column\":2,\"level\":\"error\",\"code\":1000,\"message\":\"first\"},"
+            + "{\"file\":\"a.sh\",\"line\":3,\"column\":4,\"level\":\"style\",\"code\":2001,\"message\":\"second\"},"
+            + "{\"file\":\"b.sh\",\"line\":5,\"column\":6,\"level\":\"style\",\"code\":2002,\"message\":\"third\"}]}'\nexit 1\n")
+            .getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(binary.toFile().setExecutable(true));
+        final Path script = tmp.newFile("script.sh").toPath();
+
+        final Shellcheck.Result result = Shellcheck.run("test.0", binary, Collections.emptyList(), Collections.singletonList(script),
+            tmp.getRoot().toPath().resolve("stdout"), tmp.getRoot().toPath().resolve("stderr"), true, 0, false);
+
+        Assert.assertEquals(3, result.diagnosticCount());
+        Assert.assertEquals(1, result.diagnosticCount(Severity.warning));
+        Assert.assertEquals(3, result.diagnosticCount(Severity.style));
+        final List<String> diagnostics = new ArrayList<>();
+        result.forEachDiagnostic(diagnostic -> diagnostics.add(diagnostic.toString()));
+        Assert.assertEquals(Arrays.asList("a.sh:1:2: error: first [SC1000]", "a.sh:3:4: style: second [SC2001]",
+            "b.sh:5:6: style: third [SC2002]"), diagnostics);
+    }
+}
@@ -0,0 +1,69 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+public class ShellcheckrcsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void theNearestShellcheckrcApplies() throws IOException {
+        final Path root = tmp.getRoot().toPath();
+        final Path rootShellcheckrc = Files.write(root.resolve(".shellcheckrc"), "enable=all\n".getBytes(StandardCharsets.UTF_8));
+        final Path sub = Files.createDirectories(root.resolve("sub"));
+        final Path subShellcheckrc = Files.write(sub.resolve("shellcheckrc"), "disable=SC2086\n".getBytes(StandardCharsets.UTF_8));
+        final Path deep = Files.createDirectories(sub.resolve("deep"));
+
+        final Shellcheckrcs shellcheckrcs = new Shellcheckrcs();
+        Assert.assertEquals(Optional.of(rootShellcheckrc), shellcheckrcs.nearest(root.resolve("a.sh")));
+        Assert.assertEquals(Optional.of(subShellcheckrc), shellcheckrcs.nearest(sub.resolve("b.sh")));
+        Assert.assertEquals(Optional.of(subShellcheckrc), shellcheckrcs.nearest(deep.resolve("c.sh")));
+        Assert.assertEquals(2, shellcheckrcs.nearest(Arrays.asList(root.resolve("a.sh"), sub.resolve("b.sh"), deep.resolve("c.sh"))).size());
+    }
+
+    @Test
+    public void theFingerprintFollowsTheShellcheckrcContent() throws IOException {
+        final Path root = tmp.getRoot().toPath();
+        final Path shellcheckrc = Files.write(root.resolve(".shellcheckrc"), "enable=all\n".getBytes(StandardCharsets.UTF_8));
+        final Path script = root.resolve("a.sh");
+
+        final String before = new Shellcheckrcs().fingerprint(script);
+        Assert.assertEquals(before, new Shellcheckrcs().fingerprint(script));
+        Files.write(shellcheckrc, "disable=SC2086\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertNotEquals(before, new Shellcheckrcs().fingerprint(script));
+    }
+}
@@ -0,0 +1,92 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+public class SourceDirsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void sourceDirsAreReadFromTheConfiguration() throws IOException, XmlPullParserException {
+        final Path baseDir = tmp.getRoot().toPath();
+        final Xpp3Dom configuration = Xpp3DomBuilder.build(new StringReader(
+            "<configuration>" +
+                "<sourceDirs>" +
+                "<sourceDir>" +
+                "<directory>scripts</directory>" +
+                "<includes><include>**/*.sh</include></includes>" +
+                "<excludes><exclude>generated/**</exclude></excludes>" +
+                "</sourceDir>" +
+                "<sourceDir><directory>" + baseDir.resolve("other").toFile().getAbsolutePath() + "</directory></sourceDir>" +
+                "</sourceDirs>" +
+                "</configuration>"));
+
+        final List<SourceDir> sourceDirs = SourceDirs.fromConfiguration(configuration, baseDir).get();
+
+        Assert.assertEquals(2, sourceDirs.size());
+        Assert.assertEquals(baseDir.resolve("scripts").toFile().getAbsolutePath(), sourceDirs.get(0).getDirectory());
+        Assert.assertEquals(Collections.singletonList("**/*.sh"), sourceDirs.get(0).getIncludes());
+        Assert.assertEquals(Collections.singletonList("generated/**"), sourceDirs.get(0).getExcludes());
+        Assert.assertEquals(baseDir.resolve("other").toFile().getAbsolutePath(), sourceDirs.get(1).getDirectory());
+    }
+
+    @Test
+    public void configurationsWithoutSourceDirsHaveNone() throws IOException, XmlPullParserException {
+        final Path baseDir = tmp.getRoot().toPath();
+        Assert.assertEquals(Optional.empty(), SourceDirs.fromConfiguration(null, baseDir));
+        Assert.assertEquals(Optional.empty(), SourceDirs.fromConfiguration(
+            Xpp3DomBuilder.build(new StringReader("<configuration><skip>false</skip></configuration>")), baseDir));
+    }
+
+    @Test
+    public void searchFindsTheIncludedFilesSorted() throws IOException {
+        final Path baseDir = tmp.getRoot().toPath();
+        final Path srcMainSh = Files.createDirectories(baseDir.resolve("src").resolve("main").resolve("sh"));
+        final Path b = Files.createFile(srcMainSh.resolve("b.sh"));
+        final Path a = Files.createFile(srcMainSh.resolve("a.sh"));
+        Files.createFile(srcMainSh.resolve("c.txt"));
+
+        final List<Path> found = SourceDirs.search(Collections.singletonList(SourceDirs.defaultSourceDir(baseDir)), new SystemStreamLog());
+
+        Assert.assertEquals(Arrays.asList(a, b), found);
+    }
+}
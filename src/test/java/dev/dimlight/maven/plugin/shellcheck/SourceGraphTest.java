@@ -0,0 +1,92 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class SourceGraphTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void sourcedPathsAreRecognized() {
+        final List<String> lines = Arrays.asList(
+            "#!/bin/bash",
+            "source lib/one.sh",
+            "  . \"./two.sh\" arg1 arg2",
+            "[ -f three.sh ] && source three.sh; echo done",
+            ". \"$(dirname \"$0\")/four.sh\"",
+            "# shellcheck source=lib/five.sh",
+            "ls -la . | grep x",
+            "echo source not-a-file.sh"
+        );
+
+        Assert.assertEquals(Arrays.asList("lib/one.sh", "./two.sh", "three.sh", "$(dirname $0)/four.sh", "lib/five.sh"),
+            SourceGraph.sourcedPaths(lines));
+    }
+
+    @Test
+    public void fingerprintsCoverTransitivelySourcedFiles() throws IOException {
+        final Path root = tmp.getRoot().toPath();
+        final Path common = write(root.resolve("lib").resolve("common.sh"), "source \"$DIR/strings.sh\"\nsource ../main.sh");
+        final Path strings = write(root.resolve("lib").resolve("strings.sh"), "trim() { :; }");
+        final Path main = write(root.resolve("main.sh"), "DIR=lib\n. lib/common.sh\ntrim x");
+        final Path standalone = write(root.resolve("standalone.sh"), "echo alone");
+        final List<Path> scripts = Arrays.asList(main, standalone);
+
+        final Path graphFile = root.resolve("graph");
+        final SourceGraph graph = SourceGraph.load(graphFile, root);
+        final Map<Path, String> before = graph.fingerprints("tool", scripts);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(common, strings)), graph.dependenciesOf(main));
+        Assert.assertEquals(Collections.emptySet(), graph.dependenciesOf(standalone));
+        graph.save();
+
+        // a change deep in the graph changes only the fingerprints of the scripts depending on it
+        write(strings, "trim() { echo; }");
+        final SourceGraph reloaded = SourceGraph.load(graphFile, root);
+        final Map<Path, String> after = reloaded.fingerprints("tool", scripts);
+        Assert.assertNotEquals(before.get(main), after.get(main));
+        Assert.assertEquals(before.get(standalone), after.get(standalone));
+        Assert.assertEquals(after, reloaded.fingerprints("tool", scripts));
+        Assert.assertNotEquals(after.get(standalone), reloaded.fingerprints("other-tool", scripts).get(standalone));
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
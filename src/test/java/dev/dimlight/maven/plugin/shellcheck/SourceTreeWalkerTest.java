@@ -0,0 +1,135 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.shared.model.fileset.FileSet;
+import org.apache.maven.shared.model.fileset.util.FileSetManager;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SourceTreeWalkerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Path createTree() throws IOException {
+        final Path root = tmp.newFolder("tree").toPath();
+        for (String file : Arrays.asList("a.sh", "b.txt", "sub/c.sh", "sub/deeper/d.sh", "sub/deeper/e.bash",
+            "generated/f.sh", "generated/nested/g.sh", ".git/hooks/pre-commit.sh", "other/generated/h.sh", "CVS/i.sh")) {
+            final Path path = root.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.createFile(path);
+        }
+        try {
+            Files.createSymbolicLink(root.resolve("linked"), root.resolve("sub"));
+            Files.createSymbolicLink(root.resolve("link.sh"), root.resolve("a.sh"));
+            Files.createSymbolicLink(root.resolve("dangling.sh"), root.resolve("missing.sh"));
+            Files.createSymbolicLink(root.resolve("sub/deeper/up"), root.resolve("generated"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // no symbolic links on this filesystem, the other cases are still compared
+        }
+        return root;
+    }
+
+    private static FileSet fileSet(Path root, List<String> includes, List<String> excludes, boolean followSymlinks, boolean useDefaultExcludes) {
+        final FileSet fileSet = new SourceDir();
+        fileSet.setDirectory(root.toFile().getAbsolutePath());
+        includes.forEach(fileSet::addInclude);
+        excludes.forEach(fileSet::addExclude);
+        fileSet.setFollowSymlinks(followSymlinks);
+        fileSet.setUseDefaultExcludes(useDefaultExcludes);
+        return fileSet;
+    }
+
+    private static void assertSameAsFileSetManager(FileSet fileSet) {
+        final List<Path> expected = Arrays.stream(new FileSetManager(new SystemStreamLog(), false).getIncludedFiles(fileSet))
+            .map(file -> Paths.get(fileSet.getDirectory(), file))
+            .sorted()
+            .collect(Collectors.toList());
+
+        final List<Path> actual = SourceTreeWalker.includedFiles(Collections.singletonList(fileSet)).stream()
+            .sorted()
+            .collect(Collectors.toList());
+
+        Assert.assertEquals("includes " + fileSet.getIncludes() + " excludes " + fileSet.getExcludes()
+            + " followSymlinks " + fileSet.isFollowSymlinks() + " defaultExcludes " + fileSet.isUseDefaultExcludes(), expected, actual);
+    }
+
+    @Test
+    public void theIncludedFilesAreTheSameAsFileSetManagerOnes() throws IOException {
+        final Path root = createTree();
+        final List<List<String>> includes = Arrays.asList(
+            Collections.emptyList(),
+            Collections.singletonList("**/*.sh"),
+            Arrays.asList("*.sh", "sub/**/*.bash"),
+            Collections.singletonList("sub/"),
+            Collections.singletonList("%regex[.*\\.bash]"));
+        final List<List<String>> excludes = Arrays.asList(
+            Collections.emptyList(),
+            Collections.singletonList("generated/**"),
+            Arrays.asList("**/generated/**", "**/d.sh"),
+            Collections.singletonList("sub\\deeper\\"));
+        for (List<String> include : includes) {
+            for (List<String> exclude : excludes) {
+                for (boolean followSymlinks : new boolean[]{false, true}) {
+                    for (boolean useDefaultExcludes : new boolean[]{false, true}) {
+                        assertSameAsFileSetManager(fileSet(root, include, exclude, followSymlinks, useDefaultExcludes));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void missingDirectoriesHaveNoFiles() {
+        final FileSet missing = fileSet(tmp.getRoot().toPath().resolve("missing"), Collections.emptyList(), Collections.emptyList(), false, true);
+
+        Assert.assertEquals(Collections.emptyList(), SourceTreeWalker.includedFiles(Collections.singletonList(missing)));
+    }
+
+    @Test
+    public void everyFileSetIsWalked() throws IOException {
+        final Path root = createTree();
+        final List<FileSet> fileSets = Arrays.asList(
+            fileSet(root.resolve("sub"), Collections.singletonList("**/*.sh"), Collections.emptyList(), false, true),
+            fileSet(root.resolve("generated"), Collections.singletonList("**/*.sh"), Collections.emptyList(), false, true));
+
+        final List<Path> files = SourceTreeWalker.includedFiles(fileSets).stream().sorted().collect(Collectors.toList());
+
+        Assert.assertEquals(Arrays.asList(root.resolve("generated/f.sh"), root.resolve("generated/nested/g.sh"),
+            root.resolve("sub/c.sh"), root.resolve("sub/deeper/d.sh")), files);
+    }
+}
@@ -0,0 +1,119 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+public class TimingHistoryTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void invocationTimeIsSplitBySizeAndSurvivesSaveAndLoad() throws IOException {
+        final Path historyFile = tmp.getRoot().toPath().resolve("sub").resolve("timings");
+        final Path small = Paths.get("small.sh");
+        final Path big = Paths.get("big.sh");
+        final Map<Path, Long> sizes = new HashMap<>();
+        sizes.put(small, 99L);
+        sizes.put(big, 299L);
+
+        final TimingHistory history = TimingHistory.load(historyFile);
+        history.record(Arrays.asList(small, big), sizes::get, 400);
+        history.save();
+
+        final TimingHistory reloaded = TimingHistory.load(historyFile);
+        final ToLongFunction<Path> cost = reloaded.predictedCost(sizes::get);
+        Assert.assertEquals(100_000, cost.applyAsLong(small));
+        Assert.assertEquals(300_000, cost.applyAsLong(big));
+
+        // split by size, not measured
+        Assert.assertTrue(reloaded.slowest(2, Arrays.asList(small, big)).isEmpty());
+    }
+
+    @Test
+    public void filesCheckedOnTheirOwnAreMeasured() throws IOException {
+        final Path historyFile = tmp.getRoot().toPath().resolve("timings");
+        final Path small = Paths.get("small.sh");
+        final Path big = Paths.get("big.sh");
+        final Path other = Paths.get("other.sh");
+        final Map<Path, Long> sizes = new HashMap<>();
+        sizes.put(small, 99L);
+        sizes.put(big, 299L);
+        sizes.put(other, 99L);
+
+        final TimingHistory history = TimingHistory.load(historyFile);
+        history.record(Collections.singletonList(small), sizes::get, 500);
+        history.record(Collections.singletonList(big), sizes::get, 100);
+        // the measured small file takes 500 of these 600 millis, the rest goes to the other file
+        history.record(Arrays.asList(small, other), sizes::get, 600);
+        history.save();
+
+        final TimingHistory reloaded = TimingHistory.load(historyFile);
+        final ToLongFunction<Path> cost = reloaded.predictedCost(sizes::get);
+        Assert.assertEquals(500_000, cost.applyAsLong(small));
+        Assert.assertEquals(100_000, cost.applyAsLong(other));
+
+        // the small but slow file comes first, the file never checked on its own is not reported
+        final List<Map.Entry<Path, Long>> slowest = reloaded.slowest(5, Arrays.asList(small, big, other));
+        Assert.assertEquals(2, slowest.size());
+        Assert.assertEquals(small.toAbsolutePath(), slowest.get(0).getKey().toAbsolutePath());
+        Assert.assertEquals(500_000L, (long) slowest.get(0).getValue());
+        Assert.assertEquals(big.toAbsolutePath(), slowest.get(1).getKey().toAbsolutePath());
+        Assert.assertEquals(1, reloaded.slowest(1, Arrays.asList(small, big, other)).size());
+        Assert.assertTrue(reloaded.slowest(-1, Arrays.asList(small, big, other)).isEmpty());
+
+        // a measurement is forgotten once the file size changes
+        sizes.put(small, 199L);
+        reloaded.record(Arrays.asList(small, other), sizes::get, 300);
+        Assert.assertTrue(reloaded.slowest(5, Collections.singletonList(small)).isEmpty());
+    }
+
+    @Test
+    public void unknownFilesAreEstimatedAtTheAverageSpeed() throws IOException {
+        final Path known = Paths.get("known.sh");
+        final Path unknown = Paths.get("unknown.sh");
+        final Map<Path, Long> sizes = new HashMap<>();
+        sizes.put(known, 999L);
+        sizes.put(unknown, 1999L);
+
+        final TimingHistory history = TimingHistory.load(tmp.getRoot().toPath().resolve("timings"));
+        history.record(Collections.singletonList(known), sizes::get, 10);
+
+        // 10 millis for 1000 bytes, so 10 micros per byte
+        Assert.assertEquals(20_000, history.predictedCost(sizes::get).applyAsLong(unknown));
+    }
+}
@@ -0,0 +1,76 @@
+package dev.dimlight.maven.plugin.shellcheck;
+
+/*-
+ * #%L
+ * dev.dimlight:shellcheck-maven-plugin
+ * %%
+ * Copyright (C) 2020 - 2023 Marco Nicolini
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class UpToDateManifestTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void onlySavedStampsAreUpToDate() throws IOException {
+        final Path manifestFile = tmp.getRoot().toPath().resolve("sub").resolve("manifest");
+        final List<Path> files = Collections.singletonList(write("a.sh", "echo $1"));
+        final String stamp = UpToDateManifest.stamp(Collections.singletonList("-x"), files);
+
+        Assert.assertFalse(UpToDateManifest.load(manifestFile).isUpToDate(stamp));
+
+        UpToDateManifest.load(manifestFile).save(stamp);
+        Assert.assertTrue(UpToDateManifest.load(manifestFile).isUpToDate(stamp));
+
+        UpToDateManifest.load(manifestFile).invalidate();
+        Assert.assertFalse(UpToDateManifest.load(manifestFile).isUpToDate(stamp));
+    }
+
+    @Test
+    public void stampChangesWithConfigurationAndStatData() throws IOException {
+        final Path a = write("a.sh", "echo $1");
+        final Path b = write("b.sh", "echo $2");
+        final String stamp = UpToDateManifest.stamp(Collections.singletonList("-x"), Arrays.asList(a, b));
+
+        Assert.assertEquals(stamp, UpToDateManifest.stamp(Collections.singletonList("-x"), Arrays.asList(a, b)));
+        Assert.assertNotEquals(stamp, UpToDateManifest.stamp(Collections.singletonList("-a"), Arrays.asList(a, b)));
+        Assert.assertNotEquals(stamp, UpToDateManifest.stamp(Collections.singletonList("-x"), Collections.singletonList(a)));
+
+        Files.setLastModifiedTime(b, FileTime.fromMillis(Files.getLastModifiedTime(b).toMillis() + 2000));
+        Assert.assertNotEquals(stamp, UpToDateManifest.stamp(Collections.singletonList("-x"), Arrays.asList(a, b)));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(tmp.getRoot().toPath().resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}